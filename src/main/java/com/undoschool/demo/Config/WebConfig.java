@@ -0,0 +1,25 @@
+package com.undoschool.demo.Config;
+
+import com.undoschool.demo.controller.AdmissionInterceptor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+
+    private final AdmissionInterceptor admissionInterceptor;
+
+    @Value("${app.admission.enabled:true}")
+    private boolean admissionEnabled;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (admissionEnabled) {
+            registry.addInterceptor(admissionInterceptor).addPathPatterns("/api/search", "/api/search/suggest");
+        }
+    }
+}
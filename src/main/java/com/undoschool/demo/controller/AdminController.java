@@ -0,0 +1,101 @@
+package com.undoschool.demo.controller;
+
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.QueryFingerprintStats;
+import com.undoschool.demo.dto.ShardRequestCacheStats;
+import com.undoschool.demo.dto.WarmupReport;
+import com.undoschool.demo.service.CourseBootstrap;
+import com.undoschool.demo.service.CourseSearchService;
+import com.undoschool.demo.service.IndexGeneration;
+import com.undoschool.demo.service.SearchWarmup;
+import com.undoschool.demo.service.SlowQueryLog;
+import com.undoschool.demo.service.TrafficSampler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    private final SlowQueryLog slowQueryLog;
+    private final CourseSearchService courseSearchService;
+    private final SearchWarmup searchWarmup;
+    private final TrafficSampler trafficSampler;
+    private final CourseBootstrap courseBootstrap;
+    private final IndexGeneration indexGeneration;
+    private final AdminAccess adminAccess;
+
+    @GetMapping("/slow-queries")
+    public ResponseEntity<List<QueryFingerprintStats>> getSlowQueryStats(
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        return ResponseEntity.ok(slowQueryLog.getStats(limit));
+    }
+
+    @DeleteMapping("/slow-queries")
+    public ResponseEntity<Void> resetSlowQueryStats(
+            @RequestHeader(value = AdminAccess.HEADER, required = false) String adminToken
+    ) {
+        if (!adminAccess.isAdmin(adminToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        slowQueryLog.reset();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/request-cache")
+    public ResponseEntity<ShardRequestCacheStats> getRequestCacheStats() {
+        return ResponseEntity.ok(courseSearchService.getRequestCacheStats());
+    }
+
+    @GetMapping("/warmup")
+    public ResponseEntity<WarmupReport> getWarmupReport() {
+        return ResponseEntity.ok(searchWarmup.getReport());
+    }
+
+    /** Sampled searches, in the format of {@code app.warmup.requests-file}. */
+    @GetMapping("/traffic-sample")
+    public ResponseEntity<List<CourseSearchRequest>> getTrafficSample(
+            @RequestHeader(value = AdminAccess.HEADER, required = false) String adminToken
+    ) {
+        if (!adminAccess.isAdmin(adminToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(trafficSampler.getSample());
+    }
+
+    /**
+     * The whole catalog as a gzipped NDJSON dump for {@code app.bootstrap.mode=dump}. The ETag
+     * is the index generation, so an unchanged catalog is not downloaded again.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCourses(
+            @RequestHeader(value = AdminAccess.HEADER, required = false) String adminToken,
+            WebRequest webRequest
+    ) {
+        if (!adminAccess.isAdmin(adminToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (webRequest.checkNotModified(indexGeneration.etag(), indexGeneration.lastModified())) {
+            return null;
+        }
+        StreamingResponseBody body = courseBootstrap::export;
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename("courses.ndjson.gz").build().toString())
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .body(body);
+    }
+}
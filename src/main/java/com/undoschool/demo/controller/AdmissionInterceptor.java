@@ -0,0 +1,102 @@
+package com.undoschool.demo.controller;
+
+import com.undoschool.demo.service.AdaptiveConcurrencyLimiter;
+import com.undoschool.demo.service.ClientRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Admission control in front of the search endpoints. A client over its token bucket gets
+ * {@code 429}, and a request arriving while the adaptive concurrency limit is reached gets
+ * {@code 503}; both immediately and with {@code Retry-After}, so overload is shed at the
+ * door instead of queuing on Elasticsearch.
+ */
+@Component
+@Slf4j
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+    private static final String ADMITTED_AT = AdmissionInterceptor.class.getName() + ".admittedAt";
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ClientRateLimiter clientRateLimiter;
+    private final Set<String> apiKeys;
+    private final Counter rateLimited;
+    private final Counter shed;
+
+    public AdmissionInterceptor(AdaptiveConcurrencyLimiter concurrencyLimiter, ClientRateLimiter clientRateLimiter,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.admission.api-keys:}") List<String> apiKeys) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.clientRateLimiter = clientRateLimiter;
+        this.apiKeys = apiKeys.stream().filter(StringUtils::hasText).map(String::trim).collect(Collectors.toSet());
+        this.rateLimited = Counter.builder("course.search.rejected").tag("reason", "rate-limit")
+                .description("Searches rejected by admission control").register(meterRegistry);
+        this.shed = Counter.builder("course.search.rejected").tag("reason", "concurrency-limit")
+                .description("Searches rejected by admission control").register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // Streamed responses come back here once more; they were admitted on the first pass
+            return true;
+        }
+
+        long retryAfter = clientRateLimiter.tryAcquire(clientKey(request));
+        if (retryAfter > 0) {
+            rateLimited.increment();
+            reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfter);
+            return false;
+        }
+
+        if (!concurrencyLimiter.tryAcquire()) {
+            shed.increment();
+            log.debug("Shedding search, {} in flight at limit {}",
+                    concurrencyLimiter.getInFlight(), concurrencyLimiter.getLimit());
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1);
+            return false;
+        }
+        request.setAttribute(ADMITTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object admittedAt = request.getAttribute(ADMITTED_AT);
+        if (admittedAt != null && !request.isAsyncStarted()) {
+            request.removeAttribute(ADMITTED_AT);
+            concurrencyLimiter.release(System.nanoTime() - (long) admittedAt);
+        }
+    }
+
+    /**
+     * The bucket a request draws from: its API key if that is one of {@code app.admission.api-keys},
+     * otherwise its address. An unknown key counts as no key, so that inventing a new key per
+     * request does not get a client a fresh bucket each time.
+     */
+    String clientKey(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "addr:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+}
@@ -0,0 +1,52 @@
+package com.undoschool.demo.controller;
+
+import com.undoschool.demo.model.CourseDocument;
+import com.undoschool.demo.service.CourseLookupService;
+import com.undoschool.demo.service.IndexGeneration;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/courses")
+@RequiredArgsConstructor
+public class CourseController {
+
+    private final CourseLookupService courseLookupService;
+    private final IndexGeneration indexGeneration;
+
+    /** Most ids a single multi-id lookup may ask for. */
+    @Value("${app.lookup.max-ids:100}")
+    private int maxIds;
+
+    @GetMapping("/{id}")
+    public ResponseEntity<CourseDocument> getCourse(@PathVariable String id, WebRequest webRequest) {
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        return courseLookupService.findById(id)
+                .map(course -> ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(course))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /** {@code GET /api/courses?ids=1,2,3}: the courses found, in the order asked for. */
+    @GetMapping
+    public ResponseEntity<List<CourseDocument>> getCourses(@RequestParam List<String> ids, WebRequest webRequest) {
+        if (ids.isEmpty() || ids.size() > maxIds) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (isNotModified(webRequest)) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(courseLookupService.findByIds(ids));
+    }
+
+    private boolean isNotModified(WebRequest webRequest) {
+        return webRequest.checkNotModified(indexGeneration.etag(), indexGeneration.lastModified());
+    }
+}
@@ -5,11 +5,23 @@ import com.undoschool.demo.dto.CourseSearchRequest;
 import com.undoschool.demo.dto.CourseSearchResponse;
 import com.undoschool.demo.model.CourseDocument;
 import com.undoschool.demo.service.CourseSearchService;
+import com.undoschool.demo.service.CourseSuggestIndex;
+import com.undoschool.demo.service.IndexGeneration;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,8 +34,14 @@ public class CourseSearchController {
     @Autowired
     private CourseSearchService courseSearchService;
 
+    @Autowired
+    private IndexGeneration indexGeneration;
+
+    @Autowired
+    private AdminAccess adminAccess;
+
     @GetMapping
-    public ResponseEntity<CourseSearchResponse> searchCourses(
+    public ResponseEntity<?> searchCourses(
             @RequestParam(required = false) String q,
             @RequestParam(required = false) Integer minAge,
             @RequestParam(required = false) Integer maxAge,
@@ -34,8 +52,27 @@ public class CourseSearchController {
             @RequestParam(required = false) String startDate,
             @RequestParam(defaultValue = "upcoming") String sort,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size
-    ) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(defaultValue = "false") boolean highlight,
+            @RequestParam(defaultValue = "false") boolean profile,
+            @RequestHeader(value = AdminAccess.HEADER, required = false) String adminToken,
+            WebRequest webRequest,
+            HttpServletResponse servletResponse
+    ) throws IOException {
+        if (profile && !adminAccess.isAdmin(adminToken)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        // A profile is only worth anything measured now, never from a client's cache
+        if (!profile && matchesIndex(webRequest)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(indexGeneration.etag())
+                    .lastModified(indexGeneration.lastModified())
+                    .build();
+        }
+        String etag = indexGeneration.etag();
+        long lastModified = indexGeneration.lastModified();
+
         CourseSearchRequest request = new CourseSearchRequest();
         request.setQ(q);
         request.setMinAge(minAge);
@@ -64,15 +101,97 @@ public class CourseSearchController {
         request.setSort(sort);
         request.setPage(page);
         request.setSize(size);
+        request.setFacets(facets);
+        request.setHighlight(highlight);
+        request.setProfile(profile);
+
+        if (courseSearchService.canPassThrough(request)) {
+            // Written here rather than as a StreamingResponseBody, which a ResponseEntity<?> would
+            // serialize as a bean. Validated only once the stream knows the page is complete, just
+            // before its first byte, while the headers can still change.
+            servletResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+            courseSearchService.streamCourses(request, servletResponse.getOutputStream(), complete -> {
+                if (complete) {
+                    servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+                    servletResponse.setHeader(HttpHeaders.ETAG, etag);
+                    servletResponse.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+                }
+            });
+            return null;
+        }
 
         CourseSearchResponse response = courseSearchService.searchCourses(request);
-        return ResponseEntity.ok(response);
+        if (!response.isComplete() || profile) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(response);
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(response);
     }
 
     @GetMapping("/suggest")
-    public ResponseEntity<List<String>> getSuggestions(@RequestParam String q) {
-        List<String> suggestions = courseSearchService.getSuggestions(q);
-        return ResponseEntity.ok(suggestions);
+    public ResponseEntity<List<String>> getSuggestions(
+            @RequestParam String q,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) CourseDocument.CourseType type,
+            WebRequest webRequest) {
+        if (matchesIndex(webRequest)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(indexGeneration.etag())
+                    .lastModified(indexGeneration.lastModified())
+                    .build();
+        }
+        String etag = indexGeneration.etag();
+        long lastModified = indexGeneration.lastModified();
+
+        CourseSuggestIndex.Suggestions suggestions = courseSearchService.getSuggestions(q, category, type);
+        if (!suggestions.complete()) {
+            return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(suggestions.values());
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(suggestions.values());
+    }
+
+    /**
+     * Answers conditional GETs from the index generation alone: when the client's validator
+     * is still current, the response is a 304 and Elasticsearch is not called. Validators
+     * are not set here: a response only gets them once it is known to be complete, since a
+     * client must never revalidate a timed-out, partial or degraded answer into a 304.
+     */
+    private boolean matchesIndex(WebRequest webRequest) {
+        String ifNoneMatch = webRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            String current = weak(indexGeneration.etag());
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.equals("*") || weak(candidate).equals(current)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        String ifModifiedSince = webRequest.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        try {
+            long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+            // HTTP dates have second precision
+            return indexGeneration.lastModified() / 1000 <= since / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    private static String weak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
     }
 
    @GetMapping("/debug")
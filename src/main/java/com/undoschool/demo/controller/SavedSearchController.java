@@ -0,0 +1,50 @@
+package com.undoschool.demo.controller;
+
+import com.undoschool.demo.dto.SavedSearch;
+import com.undoschool.demo.dto.SearchAlert;
+import com.undoschool.demo.service.SavedSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/saved-searches")
+@RequiredArgsConstructor
+public class SavedSearchController {
+
+    private final SavedSearchService savedSearchService;
+
+    /** Saves {@code request} for {@code owner}; new courses matching it are recorded as alerts. */
+    @PostMapping
+    public ResponseEntity<SavedSearch> save(@RequestBody SavedSearch savedSearch) {
+        if (!StringUtils.hasText(savedSearch.getOwner()) || savedSearch.getRequest() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(savedSearchService.save(savedSearch.getOwner(), savedSearch.getRequest()));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<SavedSearch>> list(@RequestParam String owner) {
+        return ResponseEntity.ok(savedSearchService.list(owner));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(@PathVariable String id) {
+        return savedSearchService.delete(id)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/{id}/alerts")
+    public ResponseEntity<List<SearchAlert>> alerts(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        return ResponseEntity.ok(savedSearchService.alerts(id, limit));
+    }
+}
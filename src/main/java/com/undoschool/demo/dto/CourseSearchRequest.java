@@ -24,4 +24,13 @@ public class CourseSearchRequest {
     private String sort = "upcoming";
     private int page = 0;
     private int size = 10;
+
+    /** Whether to return facet counts alongside the results. */
+    private boolean facets;
+
+    /** Whether to return highlighted title and description fragments for a text query. */
+    private boolean highlight;
+
+    /** Whether to profile the search and return the timing breakdown (admin only). */
+    private boolean profile;
 }
\ No newline at end of file
@@ -1,15 +1,18 @@
 package com.undoschool.demo.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.undoschool.demo.model.CourseDocument;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class CourseSearchResponse {
 
     private long total;
@@ -17,4 +20,81 @@ public class CourseSearchResponse {
     private int page;
     private int size;
     private int totalPages;
+
+    /** {@code "gte"} when {@link #total} is a lower bound because hit counting stopped early. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String totalRelation;
+
+    /** Set when Elasticsearch ran out of the search's time budget and answered with what it had collected. */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean timedOut;
+
+    /** Set when some shards are missing from the results, because they timed out or failed. */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean partial;
+
+    /** Set when Elasticsearch failed and the local replica answered instead. */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean degraded;
+
+    /** Counts per category, type, price band, session month and age band; only when requested. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, List<FacetBucket>> facets;
+
+    /** Which query tier ({@code exact}, {@code fuzzy}, {@code infix}) answered a text query. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String tier;
+
+    /** The best spelling correction of {@code q} ("did you mean"), if Elasticsearch found one. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String suggestion;
+
+    /** Set when {@code q} found nothing and the results are for this corrected query instead. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String correctedQuery;
+
+    /** Highlighted fragments per course id and field ({@code title}, {@code description}); only when requested. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Map<String, List<String>>> highlights;
+
+    /** Client-side phases and the Elasticsearch Profile API breakdown; only for admin {@code profile=true} searches. */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private SearchProfileReport profile;
+
+    public CourseSearchResponse(long total, List<CourseDocument> courses, int page, int size, int totalPages) {
+        this.total = total;
+        this.courses = courses;
+        this.page = page;
+        this.size = size;
+        this.totalPages = totalPages;
+    }
+
+    /**
+     * A copy for one caller of a response that is shared (coalesced or prefetched), so that
+     * changing it does not change what the others see. The courses themselves are shared.
+     */
+    public CourseSearchResponse copy() {
+        CourseSearchResponse copy = new CourseSearchResponse(total, courses == null ? null : new ArrayList<>(courses),
+                page, size, totalPages);
+        copy.setTotalRelation(totalRelation);
+        copy.setTimedOut(timedOut);
+        copy.setPartial(partial);
+        copy.setDegraded(degraded);
+        copy.setFacets(facets == null ? null : new LinkedHashMap<>(facets));
+        copy.setTier(tier);
+        copy.setSuggestion(suggestion);
+        copy.setCorrectedQuery(correctedQuery);
+        copy.setHighlights(highlights == null ? null : new LinkedHashMap<>(highlights));
+        copy.setProfile(profile);
+        return copy;
+    }
+
+    /**
+     * Whether this is the full answer of the index. Timed-out, partial and degraded responses
+     * are not, and must not be cached or validated against the index generation.
+     */
+    @JsonIgnore
+    public boolean isComplete() {
+        return !timedOut && !partial && !degraded;
+    }
 }
\ No newline at end of file
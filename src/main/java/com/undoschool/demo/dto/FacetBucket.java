@@ -0,0 +1,14 @@
+package com.undoschool.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetBucket {
+
+    private String key;
+    private long count;
+}
@@ -0,0 +1,23 @@
+package com.undoschool.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/** A search a user wants to be alerted about when new courses match it. */
+@Data
+@NoArgsConstructor
+public class SavedSearch {
+
+    private String id;
+
+    /** Who gets the alerts, e.g. a user id or e-mail address. */
+    private String owner;
+
+    private CourseSearchRequest request;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,23 @@
+package com.undoschool.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/** A course that matched a {@link SavedSearch} when it was ingested; recorded once per pair. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchAlert {
+
+    private String searchId;
+    private String owner;
+    private String courseId;
+    private String title;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime matchedAt;
+}
@@ -0,0 +1,72 @@
+package com.undoschool.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where the time of one profiled search went: our own phases on the client and, per
+ * Elasticsearch round-trip, the Profile API's per-shard breakdown of every query clause.
+ */
+@Data
+@NoArgsConstructor
+public class SearchProfileReport {
+
+    /** One entry per Elasticsearch round-trip: each query tier tried, plus a spelling-corrected re-run. */
+    private List<Round> rounds = new ArrayList<>();
+
+    /** Turning the final Elasticsearch response into the API response. */
+    private double mappingMs;
+
+    /** From the start of the first round to the end of mapping. */
+    private double totalMs;
+
+    @Data
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Round {
+
+        private String tier;
+        private String query;
+
+        /** Building the typed {@code SearchRequest}. */
+        private double buildMs;
+        /** The client call: serialization, network, Elasticsearch and deserialization. */
+        private double searchMs;
+        /** Elasticsearch's own {@code took}. */
+        private long tookMs;
+        /** {@link #searchMs} minus {@link #tookMs}: everything outside Elasticsearch. */
+        private double transportMs;
+
+        private List<Shard> shards;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Shard {
+
+        /** {@code [node][index][shard]} as reported by Elasticsearch. */
+        private String id;
+        private double rewriteMs;
+        private double collectMs;
+        private List<QueryNode> query;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class QueryNode {
+
+        /** Lucene query type, e.g. {@code BooleanQuery} or {@code TermQuery}. */
+        private String type;
+        private String description;
+        private double timeMs;
+        /** Non-zero timings in nanoseconds by phase (create_weight, build_scorer, next_doc, score, ...). */
+        private Map<String, Long> breakdown;
+        private List<QueryNode> children;
+    }
+}
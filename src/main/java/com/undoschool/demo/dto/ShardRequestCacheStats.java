@@ -0,0 +1,18 @@
+package com.undoschool.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShardRequestCacheStats {
+
+    private String index;
+    private long hitCount;
+    private long missCount;
+    private long evictions;
+    private long memorySizeInBytes;
+    private double hitRate;
+}
@@ -0,0 +1,34 @@
+package com.undoschool.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WarmupReport {
+
+    public enum Status {
+        PENDING, RUNNING, DONE, SKIPPED
+    }
+
+    private Status status;
+    private int requests;
+    private int rounds;
+    private int errors;
+    private long durationMillis;
+
+    /** Latency of the very first replayed search, on a cold JVM and cold caches. */
+    private double firstRequestMs;
+    /**
+     * Latency of a search held out of the rounds and run once after them: a warm JVM, but
+     * nothing cached for that search. 0 when every search had to be replayed.
+     */
+    private double heldOutRequestMs;
+
+    private double firstRoundP50Ms;
+    private double firstRoundMaxMs;
+    private double lastRoundP50Ms;
+    private double lastRoundMaxMs;
+}
@@ -1,20 +1,22 @@
 package com.undoschool.demo.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
+import lombok.Setter;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.*;
 import org.springframework.data.elasticsearch.core.suggest.Completion;
 
 import java.time.LocalDateTime;
 
-@Document(indexName = "courses")
+@Document(indexName = "courses", createIndex = false)
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
 @Setting(settingPath = "/elasticsearch/courses-settings.json")
 public class CourseDocument {
@@ -26,12 +28,15 @@ public class CourseDocument {
             mainField = @Field(type = FieldType.Text, analyzer = "english"),
             otherFields = {
                     @InnerField(suffix = "keyword", type = FieldType.Keyword),
+                    // Unstemmed, so that spelling corrections are real words
+                    @InnerField(suffix = "standard", type = FieldType.Text, analyzer = "standard"),
                     @InnerField(suffix = "edge_ngram", type = FieldType.Text, analyzer = "edge_ngram_analyzer")
             }
     )
     private String title;
 
-    @Field(type = FieldType.Text, analyzer = "standard")
+    // Offsets in the postings let the unified highlighter skip re-analyzing the text
+    @Field(type = FieldType.Text, analyzer = "standard", indexOptions = IndexOptions.offsets)
     private String description;
 
     @Field(type = FieldType.Keyword)
@@ -49,6 +54,16 @@ public class CourseDocument {
     @Field(type = FieldType.Integer)
     private Integer maxAge;
 
+    /**
+     * [minAge, maxAge] as one range, so that an age filter is a single intersects query
+     * instead of one range query per bound. Kept in sync by the setters and constructor. Only part of
+     * the indexed document ({@code CourseIndexer#indexSource}), never of API responses.
+     */
+    @Field(type = FieldType.Integer_Range)
+    @Setter(AccessLevel.NONE)
+    @JsonIgnore
+    private IntegerRange ageRange;
+
     @Field(type = FieldType.Double)
     private Double price;
 
@@ -57,9 +72,43 @@ public class CourseDocument {
     @Field(type = FieldType.Date, format = {}, pattern = "yyyy-MM-dd'T'HH:mm:ss||yyyy-MM-dd'T'HH:mm||strict_date_optional_time")
     private LocalDateTime nextSessionDate;
 
+    // Completions normally live in the separate suggest index; only set by writers that bypass it
     @CompletionField
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private Completion suggest;
 
+    /** Every field but {@link #ageRange}, which is derived from {@code minAge} and {@code maxAge}. */
+    public CourseDocument(String id, String title, String description, String category, CourseType type,
+                          String gradeRange, Integer minAge, Integer maxAge, Double price,
+                          LocalDateTime nextSessionDate, Completion suggest) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.category = category;
+        this.type = type;
+        this.gradeRange = gradeRange;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.price = price;
+        this.nextSessionDate = nextSessionDate;
+        this.suggest = suggest;
+        updateAgeRange();
+    }
+
+    public void setMinAge(Integer minAge) {
+        this.minAge = minAge;
+        updateAgeRange();
+    }
+
+    public void setMaxAge(Integer maxAge) {
+        this.maxAge = maxAge;
+        updateAgeRange();
+    }
+
+    private void updateAgeRange() {
+        ageRange = minAge == null && maxAge == null ? null : new IntegerRange(minAge, maxAge);
+    }
+
     public enum CourseType {
         ONE_TIME, COURSE, CLUB
     }
@@ -0,0 +1,17 @@
+package com.undoschool.demo.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** Value of an Elasticsearch {@code integer_range} field; a missing bound is unbounded. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IntegerRange {
+
+    private Integer gte;
+    private Integer lte;
+}
@@ -0,0 +1,112 @@
+package com.undoschool.demo.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Caps the number of searches in flight with a limit that adapts to latency, in the style
+ * of a gradient limiter: a short-term average of request latency is compared against a
+ * long-term baseline. While latency stays within {@code tolerance} of the baseline the
+ * limit grows by a small queue allowance; once it inflates the limit shrinks in proportion,
+ * so excess requests are shed instead of queuing on Elasticsearch.
+ */
+@Component
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${app.admission.initial-limit:20}") int initialLimit,
+                                      @Value("${app.admission.min-limit:4}") int minLimit,
+                                      @Value("${app.admission.max-limit:200}") int maxLimit,
+                                      @Value("${app.admission.latency-tolerance:1.5}") double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        Gauge.builder("course.search.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit on concurrent searches")
+                .register(meterRegistry);
+        Gauge.builder("course.search.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .description("Searches currently admitted")
+                .register(meterRegistry);
+    }
+
+    /** Admits a request if fewer than {@link #getLimit()} are in flight; must be paired with {@link #release}. */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Releases an admitted request and feeds its latency into the limit. */
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        onSample(latencyNanos, inFlightBefore);
+    }
+
+    synchronized void onSample(long latencyNanos, int inFlightAtCompletion) {
+        double rtt = Math.max(1, latencyNanos);
+        if (longRtt == 0) {
+            shortRtt = rtt;
+            longRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+        longRtt += (rtt - longRtt) / LONG_WINDOW;
+
+        // A lasting shift (e.g. a bigger catalog) becomes the new baseline instead of throttling forever
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        // Without enough load the latency says nothing about how far the limit can go
+        if (inFlightAtCompletion < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double queueAllowance = Math.sqrt(limit);
+        double target = limit * gradient + queueAllowance;
+        double newLimit = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+
+        if ((int) newLimit != (int) limit) {
+            log.debug("Search concurrency limit {} -> {} (short rtt {} us, long rtt {} us)",
+                    (int) limit, (int) newLimit, (long) shortRtt / 1000, (long) longRtt / 1000);
+        }
+        limit = newLimit;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,49 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeRelation;
+import co.elastic.clients.json.JsonData;
+
+/**
+ * The one query for "courses whose age range overlaps these ages", shared by the search
+ * filter and the age-band facets so the two always count the same courses. Either bound
+ * may be open.
+ */
+public final class AgeFilter {
+
+    /** The integer range field holding each course's [minAge, maxAge]. */
+    public static final String AGE_RANGE_FIELD = "ageRange";
+
+    private AgeFilter() {
+    }
+
+    /**
+     * With {@code onAgeRange}, one intersects lookup on {@link #AGE_RANGE_FIELD}; otherwise a
+     * range query on each of {@code maxAge} and {@code minAge}, which works on any index.
+     */
+    public static Query overlapping(Integer from, Integer to, boolean onAgeRange) {
+        if (onAgeRange) {
+            return Query.of(q -> q.range(RangeQuery.of(r -> {
+                r.field(AGE_RANGE_FIELD).relation(RangeRelation.Intersects);
+                if (from != null) {
+                    r.gte(JsonData.of(from));
+                }
+                if (to != null) {
+                    r.lte(JsonData.of(to));
+                }
+                return r;
+            })));
+        }
+
+        BoolQuery.Builder bounds = new BoolQuery.Builder();
+        if (from != null) {
+            bounds.filter(f -> f.range(r -> r.field("maxAge").gte(JsonData.of(from))));
+        }
+        if (to != null) {
+            bounds.filter(f -> f.range(r -> r.field("minAge").lte(JsonData.of(to))));
+        }
+        return bounds.build()._toQuery();
+    }
+}
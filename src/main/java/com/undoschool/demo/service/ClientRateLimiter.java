@@ -0,0 +1,87 @@
+package com.undoschool.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token buckets: each API key (or client address, without one) may send
+ * {@code rate} searches per second on average with bursts of up to {@code burst}.
+ */
+@Component
+public class ClientRateLimiter {
+
+    private final double ratePerSecond;
+    private final double burst;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ClientRateLimiter(@Value("${app.admission.client-rate:50}") double ratePerSecond,
+                             @Value("${app.admission.client-burst:100}") double burst) {
+        this(ratePerSecond, burst, System::nanoTime);
+    }
+
+    ClientRateLimiter(double ratePerSecond, double burst, LongSupplier clock) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.clock = clock;
+    }
+
+    /**
+     * Takes a token for {@code client}.
+     *
+     * @return 0 if the request may proceed, otherwise the seconds until a token is available
+     */
+    public long tryAcquire(String client) {
+        return buckets.computeIfAbsent(client, c -> new Bucket(burst, clock.getAsLong())).tryAcquire();
+    }
+
+    /** Forgets clients whose bucket has refilled completely, i.e. that have been idle for a while. */
+    @Scheduled(fixedDelayString = "${app.admission.bucket-cleanup-interval-ms:60000}")
+    public void evictIdleClients() {
+        buckets.values().removeIf(Bucket::isFull);
+    }
+
+    int trackedClients() {
+        return buckets.size();
+    }
+
+    private final class Bucket {
+
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        synchronized long tryAcquire() {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / ratePerSecond);
+        }
+
+        synchronized boolean isFull() {
+            refill();
+            return tokens >= burst;
+        }
+
+        private void refill() {
+            long now = clock.getAsLong();
+            double elapsedSeconds = (now - refilledAt) / (double) TimeUnit.SECONDS.toNanos(1);
+            tokens = Math.min(burst, tokens + elapsedSeconds * ratePerSecond);
+            refilledAt = now;
+        }
+    }
+}
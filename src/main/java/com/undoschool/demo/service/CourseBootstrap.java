@@ -0,0 +1,170 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.snapshot.SnapshotInfo;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.model.CourseDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Fast ways to fill an empty cluster with the catalog, instead of re-ingesting the sample
+ * JSON document by document ({@code app.bootstrap.mode}):
+ * <ul>
+ *     <li>{@code snapshot}: restores the course indices from an Elasticsearch snapshot
+ *     repository, by default its latest successful snapshot;</li>
+ *     <li>{@code dump}: bulk-loads a gzipped NDJSON dump as written by {@link #export}.</li>
+ * </ul>
+ * Either way a full-reload {@link CourseIngestEvent} follows, so the derived stores are
+ * rebuilt as after any other load.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourseBootstrap {
+
+    private static final String LATEST = "latest";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Mode {
+        JSON, SNAPSHOT, DUMP
+    }
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final CourseIndexLayout courseIndexLayout;
+    private final CourseIndexer courseIndexer;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.bootstrap.mode:json}")
+    private String mode;
+
+    @Value("${app.bootstrap.snapshot.repository:courses-backup}")
+    private String repository;
+
+    /**
+     * Directory of a shared-filesystem repository (listed in the cluster's {@code path.repo}).
+     * When set, the repository is registered read-only before restoring; otherwise it must
+     * already be registered.
+     */
+    @Value("${app.bootstrap.snapshot.location:}")
+    private String repositoryLocation;
+
+    /** Snapshot to restore, or {@code latest} for the most recent successful one. */
+    @Value("${app.bootstrap.snapshot.name:latest}")
+    private String snapshotName;
+
+    @Value("${app.bootstrap.dump-file:courses.ndjson.gz}")
+    private String dumpFile;
+
+    public Mode getMode() {
+        return Mode.valueOf(mode.trim().toUpperCase());
+    }
+
+    /** Replaces the catalog with the one in the configured snapshot or dump; returns the course count. */
+    public int restore() throws IOException {
+        return switch (getMode()) {
+            case SNAPSHOT -> restoreSnapshot();
+            case DUMP -> restoreDump(Path.of(dumpFile));
+            case JSON -> throw new IllegalStateException("Nothing to restore in json bootstrap mode");
+        };
+    }
+
+    private int restoreSnapshot() throws IOException {
+        if (StringUtils.hasText(repositoryLocation)) {
+            elasticsearchClient.snapshot().createRepository(r -> r
+                    .name(repository)
+                    .type("fs")
+                    .settings(s -> s.location(repositoryLocation).readOnly(true)));
+        }
+
+        SnapshotInfo snapshot = findSnapshot();
+        List<String> indices = snapshot.indices().stream()
+                .filter(courseIndexLayout::isCourseIndex)
+                .toList();
+        if (indices.isEmpty()) {
+            throw new IllegalStateException("Snapshot " + repository + "/" + snapshot.snapshot()
+                    + " holds no course indices");
+        }
+
+        // Restored indices come back with the settings, mappings and aliases they were snapshotted with
+        courseIndexLayout.deleteAll();
+        elasticsearchClient.snapshot().restore(r -> r
+                .repository(repository)
+                .snapshot(snapshot.snapshot())
+                .indices(indices)
+                .includeAliases(true)
+                .includeGlobalState(false)
+                .waitForCompletion(true));
+        courseIndexLayout.refreshPartitions();
+
+        int count = courseIndexer.rescan();
+        log.info("Restored {} courses in {} indices from snapshot {}/{}",
+                count, indices.size(), repository, snapshot.snapshot());
+        return count;
+    }
+
+    private SnapshotInfo findSnapshot() throws IOException {
+        String name = LATEST.equalsIgnoreCase(snapshotName) ? "_all" : snapshotName;
+        return elasticsearchClient.snapshot().get(g -> g.repository(repository).snapshot(name))
+                .snapshots()
+                .stream()
+                .filter(snapshot -> "SUCCESS".equals(snapshot.state()))
+                .max(Comparator.comparing(SnapshotInfo::startTimeInMillis, Comparator.nullsFirst(Long::compare)))
+                .orElseThrow(() -> new IllegalStateException(
+                        "No successful snapshot '" + snapshotName + "' in repository " + repository));
+    }
+
+    private int restoreDump(Path file) throws IOException {
+        List<CourseDocument> courses;
+        try (InputStream in = Files.newInputStream(file)) {
+            courses = readDump(in);
+        }
+        int indexed = courseIndexer.replaceAll(courses);
+        log.info("Restored {} of {} courses from dump {}", indexed, courses.size(), file);
+        return indexed;
+    }
+
+    /** Writes every course to {@code out} as gzipped NDJSON, the format {@code dump} mode reads. */
+    public void export(OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+        courseIndexer.forEachPage(page -> writeDump(page, gzip));
+        gzip.finish();
+    }
+
+    /** One course per line. */
+    void writeDump(List<CourseDocument> courses, OutputStream out) throws IOException {
+        for (CourseDocument course : courses) {
+            out.write(objectMapper.writeValueAsBytes(course));
+            out.write('\n');
+        }
+    }
+
+    List<CourseDocument> readDump(InputStream gzipped) throws IOException {
+        List<CourseDocument> courses = new ArrayList<>();
+        try (InputStream in = new GZIPInputStream(new BufferedInputStream(gzipped, BUFFER_SIZE), BUFFER_SIZE);
+             MappingIterator<CourseDocument> lines = objectMapper.readerFor(CourseDocument.class).readValues(in)) {
+            while (lines.hasNext()) {
+                courses.add(lines.next());
+            }
+        }
+        courses.removeIf(Objects::isNull);
+        return courses;
+    }
+}
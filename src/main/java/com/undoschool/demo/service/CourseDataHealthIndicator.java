@@ -0,0 +1,43 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.dto.WarmupReport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports whether the course data has been loaded and the searches warmed up. It is part of the readiness group
+ * ({@code /actuator/health/readiness}), so a node only receives search traffic once
+ * its data is in place, while liveness is unaffected by a slow load.
+ */
+@Component
+@RequiredArgsConstructor
+public class CourseDataHealthIndicator implements HealthIndicator {
+
+    private final DataLoader dataLoader;
+    private final SearchWarmup searchWarmup;
+
+    @Override
+    public Health health() {
+        DataLoader.LoadStatus status = dataLoader.getStatus();
+        Health.Builder builder = switch (status) {
+            case READY -> Health.up();
+            case LOCAL_ONLY -> Health.up().withDetail("degraded", "serving from local replica");
+            case PENDING, LOADING, WARMING -> Health.outOfService();
+            case FAILED -> Health.down().withDetail("error", String.valueOf(dataLoader.getFailureMessage()));
+        };
+        builder.withDetail("status", status);
+        if (dataLoader.getLoadDurationMillis() >= 0) {
+            builder.withDetail("loadDurationMillis", dataLoader.getLoadDurationMillis());
+        }
+        if (dataLoader.getBootstrapSource() != null) {
+            builder.withDetail("bootstrapSource", dataLoader.getBootstrapSource());
+            builder.withDetail("bootstrapDurationMillis", dataLoader.getBootstrapDurationMillis());
+        }
+        if (searchWarmup.getReport().getStatus() == WarmupReport.Status.DONE) {
+            builder.withDetail("warmup", searchWarmup.getReport());
+        }
+        return builder.build();
+    }
+}
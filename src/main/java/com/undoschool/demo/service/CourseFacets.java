@@ -0,0 +1,153 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch._types.aggregations.*;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.FacetBucket;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the facet aggregations that are sent along with a search and turns the
+ * aggregation results into {@link FacetBucket}s. Facets of filter-only searches
+ * (no text query) are the same for every user browsing with the same filters, so
+ * they are cached per index generation.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CourseFacets {
+
+    static final String CATEGORY = "category";
+    static final String TYPE = "type";
+    static final String PRICE = "price";
+    static final String SESSION_MONTH = "nextSessionDate";
+    static final String AGE_BANDS = "ageBands";
+
+    private final IndexGeneration indexGeneration;
+    private final DateFilterRounding dateFilterRounding;
+
+    @Value("${app.search.facets.price-interval:50}")
+    private double priceInterval;
+
+    @Value("${app.search.facets.age-bands:3-5,6-8,9-12,13-18}")
+    private List<String> ageBands;
+
+    @Value("${app.search.facets.cache-size:1000}")
+    private int cacheSize;
+
+    private final Map<FacetCacheKey, Map<String, List<FacetBucket>>> cache =
+            Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<FacetCacheKey, Map<String, List<FacetBucket>>> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+
+    /**
+     * The facet aggregations; age bands are counted with the same query the age filter uses,
+     * on {@code ageRange} when {@code onAgeRange} (see {@link AgeFilter}).
+     */
+    public Map<String, Aggregation> aggregations(boolean onAgeRange) {
+        Map<String, Aggregation> aggregations = new LinkedHashMap<>();
+        aggregations.put(CATEGORY, Aggregation.of(a -> a.terms(t -> t.field("category").size(50))));
+        aggregations.put(TYPE, Aggregation.of(a -> a.terms(t -> t.field("type").size(10))));
+        aggregations.put(PRICE, Aggregation.of(a -> a
+                .histogram(h -> h.field("price").interval(priceInterval).minDocCount(1))));
+        aggregations.put(SESSION_MONTH, Aggregation.of(a -> a
+                .dateHistogram(d -> d
+                        .field("nextSessionDate")
+                        .calendarInterval(CalendarInterval.Month)
+                        .format("yyyy-MM")
+                        .minDocCount(1))));
+
+        Map<String, Query> bands = new LinkedHashMap<>();
+        for (String band : ageBands) {
+            bands.put(band, ageBandQuery(band, onAgeRange));
+        }
+        aggregations.put(AGE_BANDS, Aggregation.of(a -> a.filters(f -> f.filters(b -> b.keyed(bands)))));
+        return aggregations;
+    }
+
+    public Map<String, List<FacetBucket>> extract(Map<String, Aggregate> aggregations) {
+        Map<String, List<FacetBucket>> facets = new LinkedHashMap<>();
+        if (aggregations == null || aggregations.isEmpty()) {
+            return facets;
+        }
+
+        Optional.ofNullable(aggregations.get(CATEGORY)).filter(Aggregate::isSterms)
+                .ifPresent(agg -> facets.put(CATEGORY, termsBuckets(agg.sterms())));
+        Optional.ofNullable(aggregations.get(TYPE)).filter(Aggregate::isSterms)
+                .ifPresent(agg -> facets.put(TYPE, termsBuckets(agg.sterms())));
+        Optional.ofNullable(aggregations.get(PRICE)).filter(Aggregate::isHistogram)
+                .ifPresent(agg -> facets.put(PRICE, agg.histogram().buckets().array().stream()
+                        .map(b -> new FacetBucket(priceBand(b.key()), b.docCount()))
+                        .collect(Collectors.toList())));
+        Optional.ofNullable(aggregations.get(SESSION_MONTH)).filter(Aggregate::isDateHistogram)
+                .ifPresent(agg -> facets.put(SESSION_MONTH, agg.dateHistogram().buckets().array().stream()
+                        .map(b -> new FacetBucket(b.keyAsString(), b.docCount()))
+                        .collect(Collectors.toList())));
+        Optional.ofNullable(aggregations.get(AGE_BANDS)).filter(Aggregate::isFilters)
+                .ifPresent(agg -> {
+                    Map<String, FiltersBucket> keyed = agg.filters().buckets().keyed();
+                    facets.put(AGE_BANDS, ageBands.stream()
+                            .filter(keyed::containsKey)
+                            .map(band -> new FacetBucket(band, keyed.get(band).docCount()))
+                            .collect(Collectors.toList()));
+                });
+        return facets;
+    }
+
+    /** Facets can only be shared between users when no text query influences the match set. */
+    public boolean isCacheable(CourseSearchRequest request) {
+        return request.isFacets() && !StringUtils.hasText(request.getQ());
+    }
+
+    public Map<String, List<FacetBucket>> getCached(CourseSearchRequest request) {
+        return cache.get(cacheKey(request));
+    }
+
+    public void cache(CourseSearchRequest request, Map<String, List<FacetBucket>> facets) {
+        cache.put(cacheKey(request), facets);
+    }
+
+    private FacetCacheKey cacheKey(CourseSearchRequest request) {
+        // Only the filters determine the facets; sort and page do not
+        CourseSearchRequest filters = QueryFingerprint.normalize(request);
+        filters.setSort(null);
+        filters.setPage(0);
+        filters.setSize(0);
+        filters.setHighlight(false);
+        // A "from now on" start date moves every request; the facets only change with the rounded one
+        if (filters.getStartDate() != null) {
+            filters.setStartDate(dateFilterRounding.effectiveStart(filters.getStartDate()));
+        }
+        return new FacetCacheKey(filters, indexGeneration.current());
+    }
+
+    private static List<FacetBucket> termsBuckets(StringTermsAggregate terms) {
+        return terms.buckets().array().stream()
+                .map(b -> new FacetBucket(b.key().stringValue(), b.docCount()))
+                .collect(Collectors.toList());
+    }
+
+    private String priceBand(double from) {
+        return String.format(Locale.ROOT, "%.0f-%.0f", from, from + priceInterval);
+    }
+
+    private static Query ageBandQuery(String band, boolean onAgeRange) {
+        String[] bounds = band.split("-");
+        // A course falls in a band when its age range overlaps the band
+        return AgeFilter.overlapping(Integer.parseInt(bounds[0].trim()), Integer.parseInt(bounds[1].trim()),
+                onAgeRange);
+    }
+
+    private record FacetCacheKey(CourseSearchRequest filters, long generation) {
+    }
+}
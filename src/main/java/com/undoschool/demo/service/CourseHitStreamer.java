@@ -0,0 +1,271 @@
+package com.undoschool.demo.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.CourseSearchResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Turns a raw Elasticsearch search response into the {@link CourseSearchResponse} JSON
+ * envelope token by token. The {@code _source} of every hit is copied straight into
+ * {@code courses}, so no {@code Hit} or {@code CourseDocument} objects are built and
+ * nothing is serialized a second time.
+ */
+@Component
+public class CourseHitStreamer {
+
+    /** Only what {@link #write} reads; keeps scores, ids and shard headers off the wire. */
+    public static final String FILTER_PATH =
+            "timed_out,_shards.failed,hits.total,hits.hits._source,suggest.*.options.text";
+
+    private final JsonFactory jsonFactory;
+
+    public CourseHitStreamer(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Writes the envelope for {@code searchResponse} to {@code out}. The field order differs
+     * from the data-bound response ({@code courses} first, since the hit count is only known
+     * afterwards when counting is disabled), the content is the same.
+     *
+     * @return the total number of hits written to the envelope and the spelling correction, if any
+     */
+    public Written write(InputStream searchResponse, CourseSearchRequest request, OutputStream out) throws IOException {
+        return write(jsonFactory.createParser(searchResponse), request, Map.of(), out);
+    }
+
+    /**
+     * As {@link #write(InputStream, CourseSearchRequest, OutputStream)}, reading any Jackson
+     * format (e.g. SMILE) and appending {@code labels} (such as the {@link QueryTier} that
+     * answered) as string fields of the envelope.
+     */
+    public Written write(JsonParser searchResponse, CourseSearchRequest request, Map<String, String> labels,
+                         OutputStream out) throws IOException {
+        return write(searchResponse, request, labels, out, complete -> {
+        });
+    }
+
+    /**
+     * As {@link #write(JsonParser, CourseSearchRequest, Map, OutputStream)}, telling
+     * {@code beforeWrite} whether the page is complete (no timeout, no failed shards) before
+     * the first byte goes to {@code out}, while response headers can still depend on it.
+     * Elasticsearch sends {@code timed_out} and {@code _shards} ahead of the hits, so nothing
+     * has to be held back for that; a response that does not is reported as incomplete.
+     */
+    public Written write(JsonParser searchResponse, CourseSearchRequest request, Map<String, String> labels,
+                         OutputStream out, Consumer<Boolean> beforeWrite) throws IOException {
+        JsonGenerator generator = null;
+        try (JsonParser parser = searchResponse) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Search response is not a JSON object");
+            }
+
+            Long total = null;
+            boolean lowerBound = false;
+            int hits = 0;
+            String suggestion = null;
+            boolean timedOut = false;
+            boolean partial = false;
+            boolean timeoutKnown = false;
+            boolean shardsKnown = false;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("suggest".equals(field)) {
+                    suggestion = readFirstSuggestion(parser);
+                    continue;
+                }
+                if ("timed_out".equals(field)) {
+                    timedOut = parser.getBooleanValue();
+                    partial |= timedOut;
+                    timeoutKnown = true;
+                    continue;
+                }
+                if ("_shards".equals(field)) {
+                    partial |= readFailedShards(parser) > 0;
+                    shardsKnown = true;
+                    continue;
+                }
+                if (!"hits".equals(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (generator == null) {
+                    generator = startEnvelope(out, timeoutKnown && shardsKnown && !partial, beforeWrite);
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String hitsField = parser.currentName();
+                    parser.nextToken();
+                    if ("total".equals(hitsField)) {
+                        TotalHits totalHits = readTotal(parser);
+                        total = totalHits.value;
+                        lowerBound = totalHits.lowerBound;
+                    } else if ("hits".equals(hitsField)) {
+                        hits += copySources(parser, generator);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            }
+            if (generator == null) {
+                generator = startEnvelope(out, timeoutKnown && shardsKnown && !partial, beforeWrite);
+            }
+            generator.writeEndArray();
+
+            if (total == null) {
+                // Hit counting was disabled: all that is known is that the hits so far exist
+                total = (long) request.getPage() * request.getSize() + hits;
+                lowerBound = true;
+            }
+            generator.writeNumberField("total", total);
+            generator.writeNumberField("page", request.getPage());
+            generator.writeNumberField("size", request.getSize());
+            generator.writeNumberField("totalPages", (int) Math.ceil((double) total / request.getSize()));
+            if (lowerBound) {
+                generator.writeStringField("totalRelation", "gte");
+            }
+            if (timedOut) {
+                generator.writeBooleanField("timedOut", true);
+            }
+            if (partial) {
+                generator.writeBooleanField("partial", true);
+            }
+            for (Map.Entry<String, String> label : labels.entrySet()) {
+                generator.writeStringField(label.getKey(), label.getValue());
+            }
+            if (suggestion != null && !labels.containsKey("suggestion")) {
+                generator.writeStringField("suggestion", suggestion);
+            }
+            generator.writeEndObject();
+            return new Written(total, suggestion, timedOut, partial);
+        } finally {
+            if (generator != null) {
+                generator.close();
+            }
+        }
+    }
+
+    private JsonGenerator startEnvelope(OutputStream out, boolean complete, Consumer<Boolean> beforeWrite)
+            throws IOException {
+        beforeWrite.accept(complete);
+        JsonGenerator generator = jsonFactory.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("courses");
+        return generator;
+    }
+
+    /**
+     * The text of the first option of the first suggester in a {@code suggest} section
+     * ({@code {"name": [{"options": [{"text": ...}]}]}}), or null if there is none.
+     */
+    private String readFirstSuggestion(JsonParser parser) throws IOException {
+        String suggestion = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    parser.nextToken();
+                    if (!"options".equals(field)) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String optionField = parser.currentName();
+                            parser.nextToken();
+                            if ("text".equals(optionField) && suggestion == null) {
+                                suggestion = parser.getText();
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return suggestion;
+    }
+
+    /** The {@code failed} count of a {@code _shards} header. */
+    private int readFailedShards(JsonParser parser) throws IOException {
+        int failed = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("failed".equals(field)) {
+                failed = parser.getIntValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return failed;
+    }
+
+    /** Copies the {@code _source} of each hit in the current {@code hits} array; returns how many. */
+    private int copySources(JsonParser parser, JsonGenerator generator) throws IOException {
+        int copied = 0;
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("_source".equals(field)) {
+                    generator.copyCurrentStructure(parser);
+                    copied++;
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return copied;
+    }
+
+    private TotalHits readTotal(JsonParser parser) throws IOException {
+        TotalHits totalHits = new TotalHits();
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            // rest_total_hits_as_int style
+            totalHits.value = parser.getLongValue();
+            return totalHits;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("value".equals(field)) {
+                totalHits.value = parser.getLongValue();
+            } else if ("relation".equals(field)) {
+                totalHits.lowerBound = "gte".equals(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return totalHits;
+    }
+
+    /**
+     * What {@link #write} found: the hit total, the first spelling suggestion (or null),
+     * whether Elasticsearch ran out of time and whether any shard is missing from the results.
+     */
+    public record Written(long total, String suggestion, boolean timedOut, boolean partial) {
+
+        public boolean complete() {
+            return !partial;
+        }
+    }
+
+    private static final class TotalHits {
+        long value;
+        boolean lowerBound;
+    }
+}
@@ -0,0 +1,258 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch.indices.IndexSettings;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.model.CourseDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Decides which index a course is written to and which indices a search reads from.
+ * <p>
+ * By default everything lives in the single {@code courses} index. With
+ * {@code app.elasticsearch.partitioning.enabled=true} courses are written to monthly
+ * partitions named after their session month ({@code courses-2026-10}), all of which
+ * belong to a read alias. Searches read the alias, and with a {@code startDate} the
+ * partitions of earlier months are skipped in the can_match phase; expired months are
+ * dropped as whole indices.
+ * <p>
+ * With {@code app.elasticsearch.routing.by-category=true} courses are also routed by
+ * category, so a search filtered on one category only queries the shard holding it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CourseIndexLayout {
+
+    private static final String SETTINGS_PATH = "elasticsearch/courses-settings.json";
+    private static final String MAPPINGS_PATH = "elasticsearch/courses-mappings.json";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final ElasticsearchClient elasticsearchClient;
+
+    @Value("${app.elasticsearch.index.courses:courses}")
+    private String coursesIndex;
+
+    @Value("${app.elasticsearch.partitioning.enabled:false}")
+    private boolean partitioned;
+
+    @Value("${app.elasticsearch.partitioning.read-alias:courses-read}")
+    private String readAlias;
+
+    /** Months of sessions to keep before the current one; 0 keeps everything. */
+    @Value("${app.elasticsearch.partitioning.retention-months:0}")
+    private int retentionMonths;
+
+    @Value("${app.elasticsearch.routing.by-category:false}")
+    private boolean routeByCategory;
+
+    /** Primary shards of newly created course indices; routing only pays off with more than one. */
+    @Value("${app.elasticsearch.index.number-of-shards:1}")
+    private int numberOfShards;
+
+    private final Set<String> partitions = new ConcurrentSkipListSet<>();
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    /** Index or alias covering every course. */
+    public String readIndex() {
+        return partitioned ? readAlias : coursesIndex;
+    }
+
+    public String writeIndexFor(CourseDocument course) {
+        if (!partitioned) {
+            return coursesIndex;
+        }
+        LocalDateTime sessionDate = Optional.ofNullable(course.getNextSessionDate()).orElseGet(LocalDateTime::now);
+        return partitionName(YearMonth.from(sessionDate));
+    }
+
+    public boolean isRoutedByCategory() {
+        return routeByCategory;
+    }
+
+    /** Routing key a course is written with, or {@code null} for the default (by id). */
+    public String routingFor(CourseDocument course) {
+        return routeByCategory && StringUtils.hasText(course.getCategory()) ? course.getCategory() : null;
+    }
+
+    /**
+     * Routing key for a search, or {@code null} to fan out to every shard. Only a category
+     * filter pins a search to a single shard, since it is an exact term on the routing value.
+     */
+    public String searchRouting(CourseSearchRequest request) {
+        return routeByCategory && StringUtils.hasText(request.getCategory()) ? request.getCategory() : null;
+    }
+
+    /**
+     * {@code pre_filter_shard_size} for a search, or {@code null} for the default. With
+     * partitioning and a start date it is 1, so every partition goes through the can_match
+     * phase, which skips the months whose sessions all end before the start date without
+     * searching them.
+     */
+    public Long preFilterShardSize(CourseSearchRequest request) {
+        return partitioned && request.getStartDate() != null ? 1L : null;
+    }
+
+    /** Creates the courses index, or discovers the existing partitions, at startup. */
+    public void ensureIndex() throws IOException {
+        if (partitioned) {
+            refreshPartitions();
+            return;
+        }
+
+        boolean indexExists = elasticsearchClient.indices()
+                .exists(e -> e.index(coursesIndex))
+                .value();
+        if (!indexExists) {
+            createIndex(coursesIndex, false);
+            log.info("Created index with proper mapping");
+        }
+    }
+
+    /** Drops every course index so that a full reload starts from the current settings and mappings. */
+    public void dropAll() throws IOException {
+        deleteAll();
+        if (!partitioned) {
+            createIndex(coursesIndex, false);
+        }
+    }
+
+    /** Deletes every course index without recreating any, e.g. before a snapshot restore. */
+    public void deleteAll() throws IOException {
+        if (partitioned) {
+            refreshPartitions();
+            for (String partition : partitions) {
+                elasticsearchClient.indices().delete(d -> d.index(partition));
+            }
+            partitions.clear();
+            return;
+        }
+
+        if (elasticsearchClient.indices().exists(e -> e.index(coursesIndex)).value()) {
+            elasticsearchClient.indices().delete(d -> d.index(coursesIndex));
+        }
+    }
+
+    /** Whether {@code name} is a course index of the current layout (and not, say, {@code courses-suggest}). */
+    public boolean isCourseIndex(String name) {
+        return partitioned ? isPartitionName(name) : coursesIndex.equals(name);
+    }
+
+    /** Makes sure the partitions that the given courses are written to exist. */
+    public void ensurePartitionsFor(Collection<CourseDocument> courses) throws IOException {
+        if (!partitioned) {
+            return;
+        }
+        Set<String> missing = courses.stream()
+                .map(this::writeIndexFor)
+                .filter(name -> !partitions.contains(name))
+                .collect(Collectors.toCollection(TreeSet::new));
+        for (String partition : missing) {
+            if (!elasticsearchClient.indices().exists(e -> e.index(partition)).value()) {
+                createIndex(partition, true);
+                log.info("Created course partition {}", partition);
+            }
+            partitions.add(partition);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.elasticsearch.partitioning.refresh-interval-ms:60000}")
+    public void refreshPartitions() {
+        if (!partitioned) {
+            return;
+        }
+        try {
+            Set<String> current = elasticsearchClient.indices()
+                    .get(g -> g.index(coursesIndex + "-*").ignoreUnavailable(true).allowNoIndices(true))
+                    .result()
+                    .keySet()
+                    .stream()
+                    .filter(this::isPartitionName)
+                    .collect(Collectors.toSet());
+            partitions.retainAll(current);
+            partitions.addAll(current);
+        } catch (Exception e) {
+            log.warn("Could not refresh course partitions: {}", e.getMessage());
+        }
+    }
+
+    /** Retention is a cheap index drop: every partition older than the retention window goes. */
+    @Scheduled(cron = "${app.elasticsearch.partitioning.retention-cron:0 15 3 * * *}")
+    public void dropExpiredPartitions() {
+        if (!partitioned || retentionMonths <= 0) {
+            return;
+        }
+        refreshPartitions();
+        String oldestKept = partitionName(YearMonth.now().minusMonths(retentionMonths));
+        for (String partition : partitions) {
+            if (partition.compareTo(oldestKept) < 0) {
+                try {
+                    elasticsearchClient.indices().delete(d -> d.index(partition));
+                    partitions.remove(partition);
+                    log.info("Dropped expired course partition {}", partition);
+                } catch (Exception e) {
+                    log.error("Failed to drop expired course partition {}", partition, e);
+                }
+            }
+        }
+    }
+
+    private void createIndex(String name, boolean withReadAlias) throws IOException {
+        IndexSettings settings;
+        try (InputStream json = new ClassPathResource(SETTINGS_PATH).getInputStream()) {
+            settings = IndexSettings.of(b -> b
+                    .withJson(json)
+                    .numberOfShards(String.valueOf(numberOfShards)));
+        }
+        TypeMapping mappings = courseMappings();
+        elasticsearchClient.indices().create(c -> {
+            c.index(name).settings(settings).mappings(mappings);
+            if (withReadAlias) {
+                c.aliases(readAlias, a -> a);
+            }
+            return c;
+        });
+    }
+
+    /** Same settings as {@code @Setting} on {@link CourseDocument}, including the index sort. */
+    public static IndexSettings courseSettings() throws IOException {
+        try (InputStream json = new ClassPathResource(SETTINGS_PATH).getInputStream()) {
+            return IndexSettings.of(b -> b.withJson(json));
+        }
+    }
+
+    /** Same mappings as the field annotations on {@link CourseDocument}. */
+    public static TypeMapping courseMappings() throws IOException {
+        try (InputStream json = new ClassPathResource(MAPPINGS_PATH).getInputStream()) {
+            return TypeMapping.of(b -> b.withJson(json));
+        }
+    }
+
+    private String partitionName(YearMonth month) {
+        return coursesIndex + "-" + month.format(PARTITION_SUFFIX);
+    }
+
+    private boolean isPartitionName(String name) {
+        return name.matches(Pattern.quote(coursesIndex) + "-\\d{4}-\\d{2}");
+    }
+}
@@ -0,0 +1,254 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.ScrollResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.undoschool.demo.model.CourseDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The write path for courses. Every ingest (sample data loading, reindexing) goes through
+ * here, so that target indices come from {@link CourseIndexLayout} and a
+ * {@link CourseIngestEvent} is published for the derived stores.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourseIndexer {
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final CourseIndexLayout courseIndexLayout;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RestClient restClient;
+    private final WireFormat wireFormat;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.data.bulk-batch-size:500}")
+    private int batchSize;
+
+    /** Replaces the whole catalog, recreating the course indices with the current settings and mappings. */
+    public int replaceAll(List<CourseDocument> courses) throws IOException {
+        courseIndexLayout.dropAll();
+        List<CourseDocument> indexed = bulkIndex(courses);
+        elasticsearchClient.indices().refresh(r -> r.index(courseIndexLayout.readIndex()).ignoreUnavailable(true));
+        eventPublisher.publishEvent(new CourseIngestEvent(indexed, true));
+        return indexed.size();
+    }
+
+    /** Adds or updates courses. */
+    public int index(List<CourseDocument> courses) throws IOException {
+        List<CourseDocument> indexed = bulkIndex(courses);
+        if (courseIndexLayout.isPartitioned() || courseIndexLayout.isRoutedByCategory()) {
+            removeStaleCopies(indexed);
+        }
+        eventPublisher.publishEvent(new CourseIngestEvent(indexed, false));
+        return indexed.size();
+    }
+
+    public long count() throws IOException {
+        return elasticsearchClient.count(c -> c
+                .index(courseIndexLayout.readIndex())
+                .ignoreUnavailable(true)
+        ).count();
+    }
+
+    /**
+     * Announces the courses currently in the indices as a full reload, for courses that got
+     * there without going through here (a snapshot restore), so the derived stores rebuild.
+     */
+    public int rescan() throws IOException {
+        elasticsearchClient.indices().refresh(r -> r.index(courseIndexLayout.readIndex()).ignoreUnavailable(true));
+        List<CourseDocument> courses = readAll();
+        eventPublisher.publishEvent(new CourseIngestEvent(courses, true));
+        return courses.size();
+    }
+
+    /** Reads every course back, e.g. before the indices are recreated. */
+    public List<CourseDocument> readAll() throws IOException {
+        List<CourseDocument> courses = new ArrayList<>();
+        forEachPage(courses::addAll);
+        return courses;
+    }
+
+    /** Scrolls through every course, handing them to {@code handler} one page at a time. */
+    public void forEachPage(PageHandler handler) throws IOException {
+        SearchResponse<CourseDocument> first = elasticsearchClient.search(s -> s
+                .index(courseIndexLayout.readIndex())
+                .ignoreUnavailable(true)
+                .scroll(t -> t.time("1m"))
+                .size(batchSize), CourseDocument.class);
+        HitsMetadata<CourseDocument> hits = first.hits();
+        String scrollId = first.scrollId();
+        try {
+            while (!hits.hits().isEmpty()) {
+                handler.accept(hits.hits().stream().map(Hit::source).filter(Objects::nonNull).toList());
+                String currentScrollId = scrollId;
+                ScrollResponse<CourseDocument> page = elasticsearchClient.scroll(s -> s
+                        .scrollId(currentScrollId)
+                        .scroll(t -> t.time("1m")), CourseDocument.class);
+                hits = page.hits();
+                scrollId = page.scrollId();
+            }
+        } finally {
+            if (scrollId != null) {
+                String lastScrollId = scrollId;
+                elasticsearchClient.clearScroll(c -> c.scrollId(lastScrollId));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface PageHandler {
+        void accept(List<CourseDocument> page) throws IOException;
+    }
+
+    /**
+     * The course as it is stored: its JSON plus the derived {@code ageRange}, which is only
+     * there for queries and is left out of everything the API returns.
+     */
+    public static ObjectNode indexSource(ObjectMapper mapper, CourseDocument course) {
+        ObjectNode source = mapper.valueToTree(course);
+        if (course.getAgeRange() != null) {
+            source.set("ageRange", mapper.valueToTree(course.getAgeRange()));
+        }
+        return source;
+    }
+
+    private List<CourseDocument> bulkIndex(List<CourseDocument> courses) throws IOException {
+        courseIndexLayout.ensurePartitionsFor(courses);
+
+        List<CourseDocument> indexed = new ArrayList<>();
+        for (int i = 0; i < courses.size(); i += batchSize) {
+            List<CourseDocument> batch = courses.subList(i, Math.min(i + batchSize, courses.size()));
+
+            Set<String> failed = wireFormat.isBinary() && wireFormat.supportsBulk()
+                    ? bulkIndexRaw(batch)
+                    : bulkIndexTyped(batch);
+            batch.stream().filter(course -> !failed.contains(course.getId())).forEach(indexed::add);
+            log.info("Successfully processed batch {} to {} ({} courses, {} failed)",
+                    i, i + batch.size(), batch.size(), failed.size());
+        }
+        return indexed;
+    }
+
+    /** Indexes one batch with the typed client; returns the ids that failed. */
+    private Set<String> bulkIndexTyped(List<CourseDocument> batch) throws IOException {
+        BulkRequest.Builder bulk = new BulkRequest.Builder();
+        for (CourseDocument course : batch) {
+            bulk.operations(op -> op
+                    .index(idx -> idx
+                            .index(courseIndexLayout.writeIndexFor(course))
+                            .id(course.getId())
+                            .routing(courseIndexLayout.routingFor(course))
+                            .document(indexSource(objectMapper, course))));
+        }
+        BulkResponse response = elasticsearchClient.bulk(bulk.build());
+
+        Set<String> failed = new HashSet<>();
+        for (BulkResponseItem item : response.items()) {
+            if (item.error() != null) {
+                failed.add(item.id());
+                log.error("Failed to index course {}: {}", item.id(), item.error().reason());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Indexes one batch over the low-level client in the binary wire format, which the typed
+     * client cannot send; returns the ids that failed.
+     */
+    private Set<String> bulkIndexRaw(List<CourseDocument> batch) throws IOException {
+        ObjectMapper mapper = wireFormat.mapper();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (CourseDocument course : batch) {
+            Map<String, String> action = new LinkedHashMap<>();
+            action.put("_index", courseIndexLayout.writeIndexFor(course));
+            action.put("_id", course.getId());
+            String routing = courseIndexLayout.routingFor(course);
+            if (routing != null) {
+                action.put("routing", routing);
+            }
+            body.write(mapper.writeValueAsBytes(Map.of("index", action)));
+            body.write(wireFormat.streamSeparator());
+            body.write(mapper.writeValueAsBytes(indexSource(mapper, course)));
+            body.write(wireFormat.streamSeparator());
+        }
+
+        Request request = new Request("POST", "/_bulk");
+        wireFormat.setBody(request, body.toByteArray());
+        JsonNode response;
+        try (InputStream in = restClient.performRequest(request).getEntity().getContent()) {
+            response = mapper.readTree(in);
+        }
+
+        Set<String> failed = new HashSet<>();
+        for (JsonNode item : response.path("items")) {
+            JsonNode result = item.path("index");
+            if (result.hasNonNull("error")) {
+                failed.add(result.path("_id").asText());
+                log.error("Failed to index course {}: {}", result.path("_id").asText(),
+                        result.path("error").path("reason").asText());
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * A course whose next session moved to another month now lives in a new partition, and
+     * one whose category changed now lives on another shard; delete the copy left behind
+     * where it was before.
+     */
+    private void removeStaleCopies(List<CourseDocument> courses) throws IOException {
+        if (courses.isEmpty()) {
+            return;
+        }
+        Map<Location, List<String>> idsByLocation = courses.stream().collect(Collectors.groupingBy(
+                course -> new Location(courseIndexLayout.writeIndexFor(course), courseIndexLayout.routingFor(course)),
+                Collectors.mapping(CourseDocument::getId, Collectors.toList())));
+
+        List<Query> staleCopies = new ArrayList<>();
+        idsByLocation.forEach((location, ids) -> staleCopies.add(Query.of(q -> q.bool(b -> b
+                .filter(f -> f.ids(i -> i.values(ids)))
+                .mustNot(location.toQuery())))));
+
+        elasticsearchClient.deleteByQuery(d -> d
+                .index(courseIndexLayout.readIndex())
+                .query(q -> q.bool(b -> b.should(staleCopies).minimumShouldMatch("1"))));
+    }
+
+    /** Where a course is stored: its index and, when routed, its routing key. */
+    private record Location(String index, String routing) {
+
+        Query toQuery() {
+            return Query.of(q -> q.bool(b -> {
+                b.filter(f -> f.term(t -> t.field("_index").value(index)));
+                if (routing != null) {
+                    b.filter(f -> f.term(t -> t.field("_routing").value(routing)));
+                }
+                return b;
+            }));
+        }
+    }
+}
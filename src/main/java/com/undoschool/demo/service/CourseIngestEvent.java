@@ -0,0 +1,21 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.model.CourseDocument;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published after courses have been written to Elasticsearch by an ingest path
+ * (sample data loading, reindexing). Derived stores listen to it to stay in sync.
+ */
+@Getter
+@AllArgsConstructor
+public class CourseIngestEvent {
+
+    private final List<CourseDocument> courses;
+
+    /** {@code true} when {@link #courses} is the complete catalog and replaces everything before it. */
+    private final boolean fullReload;
+}
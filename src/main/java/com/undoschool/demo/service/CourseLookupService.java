@@ -0,0 +1,280 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.MgetResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.get.GetResult;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.undoschool.demo.model.CourseDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Courses by id, for callers that already know which courses they want (carts,
+ * recommendations). Lookups are answered from a bounded near-cache when possible; the rest
+ * go to Elasticsearch as one {@code _mget}:
+ * <ul>
+ *     <li>a multi-id lookup fetches all of its misses in one request;</li>
+ *     <li>concurrent single-id lookups are batched: the first one waits
+ *     {@code app.lookup.batch-window-ms} for others to join, then fetches them all at once.</li>
+ * </ul>
+ * Cached courses are only served while the {@link IndexGeneration} they were read at is
+ * current, so any load, reindex or write invalidates them.
+ */
+@Component
+@Slf4j
+public class CourseLookupService {
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final CourseIndexLayout courseIndexLayout;
+    private final IndexGeneration indexGeneration;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+    private final Counter batches;
+
+    /** How long the first of a group of concurrent single-id lookups waits for others to join. */
+    @Value("${app.lookup.batch-window-ms:2}")
+    private long batchWindowMs;
+
+    /** A batch is fetched as soon as it has this many ids, without waiting out the window. */
+    @Value("${app.lookup.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${app.lookup.cache-size:10000}")
+    private int cacheSize;
+
+    private final Map<String, Cached> cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            return size() > cacheSize;
+        }
+    });
+
+    private final Object pendingLock = new Object();
+    private Map<String, CompletableFuture<CourseDocument>> pending = new LinkedHashMap<>();
+
+    public CourseLookupService(ElasticsearchClient elasticsearchClient, CourseIndexLayout courseIndexLayout,
+                               IndexGeneration indexGeneration, MeterRegistry meterRegistry) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.courseIndexLayout = courseIndexLayout;
+        this.indexGeneration = indexGeneration;
+        this.cacheHits = Counter.builder("course.lookup.cache")
+                .description("Course lookups by id answered from (hit) or past (miss) the near-cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder("course.lookup.cache")
+                .description("Course lookups by id answered from (hit) or past (miss) the near-cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.batches = Counter.builder("course.lookup.batches")
+                .description("Multi-get requests sent for course lookups by id")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onCourseIngest(CourseIngestEvent event) {
+        // Entries are already unusable under the new generation; this just frees them
+        cache.clear();
+    }
+
+    public Optional<CourseDocument> findById(String id) {
+        CourseDocument cached = getCached(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return Optional.ofNullable(fetchBatched(id));
+    }
+
+    /** The courses with the given ids, in the order asked for; unknown ids are left out. */
+    public List<CourseDocument> findByIds(List<String> ids) {
+        Map<String, CourseDocument> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : new LinkedHashSet<>(ids)) {
+            CourseDocument cached = getCached(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            batches.increment();
+            found.putAll(fetch(missing));
+        }
+        return ids.stream()
+                .distinct()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private CourseDocument getCached(String id) {
+        Cached cached = cache.get(id);
+        if (cached != null && cached.generation() == indexGeneration.current()) {
+            cacheHits.increment();
+            return cached.course();
+        }
+        if (cached != null) {
+            cache.remove(id, cached);
+        }
+        cacheMisses.increment();
+        return null;
+    }
+
+    /**
+     * Joins the pending batch (or starts one) and waits for its result. Whoever starts a batch
+     * fetches it after the batch window; whoever fills it to {@link #maxBatchSize} fetches it
+     * right away. Every batch is taken exactly once, so no lookup is left behind.
+     */
+    private CourseDocument fetchBatched(String id) {
+        CompletableFuture<CourseDocument> future;
+        boolean leader = false;
+        Map<String, CompletableFuture<CourseDocument>> full = null;
+        synchronized (pendingLock) {
+            future = pending.get(id);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pending.put(id, future);
+                leader = pending.size() == 1;
+                if (pending.size() >= maxBatchSize) {
+                    full = takePending();
+                }
+            }
+        }
+
+        if (full != null) {
+            load(full);
+        } else if (leader && !awaitBatchWindow(future)) {
+            Map<String, CompletableFuture<CourseDocument>> batch;
+            synchronized (pendingLock) {
+                batch = takePending();
+            }
+            if (!batch.isEmpty()) {
+                load(batch);
+            }
+        }
+        return join(future);
+    }
+
+    private Map<String, CompletableFuture<CourseDocument>> takePending() {
+        Map<String, CompletableFuture<CourseDocument>> batch = pending;
+        pending = new LinkedHashMap<>();
+        return batch;
+    }
+
+    /**
+     * Waits out the batch window, or less if the batch fills up and is fetched by someone
+     * else meanwhile; true in that case, when there is nothing left for the leader to take.
+     */
+    private boolean awaitBatchWindow(CompletableFuture<CourseDocument> future) {
+        if (batchWindowMs <= 0) {
+            return false;
+        }
+        try {
+            future.get(batchWindowMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (ExecutionException e) {
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void load(Map<String, CompletableFuture<CourseDocument>> batch) {
+        batches.increment();
+        try {
+            Map<String, CourseDocument> found = fetch(batch.keySet());
+            batch.forEach((id, future) -> future.complete(found.get(id)));
+        } catch (RuntimeException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    /** Reads the courses from Elasticsearch in one request and caches them. */
+    private Map<String, CourseDocument> fetch(Collection<String> ids) {
+        // Read before the request, so a write that lands meanwhile makes these entries stale
+        long generation = indexGeneration.current();
+        List<String> idList = List.copyOf(ids);
+        try {
+            Map<String, CourseDocument> found = canMultiGet() ? multiGet(idList) : searchByIds(idList);
+            found.forEach((id, course) -> cache.put(id, new Cached(generation, course)));
+            log.debug("Looked up {} courses by id, {} found", idList.size(), found.size());
+            return found;
+        } catch (Exception e) {
+            log.error("Error looking up courses by id: {}", idList, e);
+            throw new RuntimeException("Failed to look up courses", e);
+        }
+    }
+
+    /**
+     * {@code _mget} needs each document's concrete index and routing. Only the plain layout
+     * can tell them from the id alone; monthly partitions and category routing cannot.
+     */
+    private boolean canMultiGet() {
+        return !courseIndexLayout.isPartitioned() && !courseIndexLayout.isRoutedByCategory();
+    }
+
+    private Map<String, CourseDocument> multiGet(List<String> ids) throws Exception {
+        MgetResponse<CourseDocument> response = elasticsearchClient.mget(m -> m
+                        .index(courseIndexLayout.readIndex())
+                        .ids(ids),
+                CourseDocument.class);
+        Map<String, CourseDocument> found = new HashMap<>();
+        for (MultiGetResponseItem<CourseDocument> item : response.docs()) {
+            if (item.isFailure()) {
+                log.warn("Lookup of course {} failed: {}", item.failure().id(), item.failure().error().reason());
+                continue;
+            }
+            GetResult<CourseDocument> result = item.result();
+            if (result.found() && result.source() != null) {
+                found.put(result.id(), result.source());
+            }
+        }
+        return found;
+    }
+
+    /** An {@code ids} query over the read alias: one request across all partitions and shards. */
+    private Map<String, CourseDocument> searchByIds(List<String> ids) throws Exception {
+        SearchResponse<CourseDocument> response = elasticsearchClient.search(s -> s
+                        .index(courseIndexLayout.readIndex())
+                        .query(q -> q.ids(i -> i.values(ids)))
+                        .size(ids.size()),
+                CourseDocument.class);
+        Map<String, CourseDocument> found = new HashMap<>();
+        for (Hit<CourseDocument> hit : response.hits().hits()) {
+            if (hit.source() != null) {
+                found.put(hit.id(), hit.source());
+            }
+        }
+        return found;
+    }
+
+    private static CourseDocument join(CompletableFuture<CourseDocument> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Cached(long generation, CourseDocument course) {
+    }
+}
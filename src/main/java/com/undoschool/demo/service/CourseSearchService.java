@@ -1,23 +1,50 @@
 package com.undoschool.demo.service;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.RequestCacheStats;
 import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.Time;
 import co.elastic.clients.elasticsearch._types.query_dsl.*;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.TotalHits;
+import co.elastic.clients.elasticsearch.core.search.TotalHitsRelation;
+import co.elastic.clients.elasticsearch.indices.IndicesStatsResponse;
+import co.elastic.clients.elasticsearch.indices.get_field_mapping.TypeFieldMappings;
 import co.elastic.clients.elasticsearch.core.search.CompletionSuggestOption;
+import co.elastic.clients.elasticsearch.core.search.PhraseSuggestOption;
+import co.elastic.clients.elasticsearch.core.search.Suggester;
+import co.elastic.clients.elasticsearch._types.SuggestMode;
 import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.undoschool.demo.dto.CourseSearchRequest;
 import com.undoschool.demo.dto.CourseSearchResponse;
+import com.undoschool.demo.dto.FacetBucket;
+import com.undoschool.demo.dto.SearchProfileReport;
+import com.undoschool.demo.dto.ShardRequestCacheStats;
 import com.undoschool.demo.model.CourseDocument;
+import jakarta.annotation.PostConstruct;
+import jakarta.json.stream.JsonGenerator;
 import lombok.RequiredArgsConstructor;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,55 +53,439 @@ import java.util.stream.Collectors;
 public class CourseSearchService {
 
     private static final String SUGGESTER_NAME = "title_suggest";
+    private static final String CORRECTION_SUGGESTER_NAME = "did_you_mean";
+    /** Keeps only corrections that match at least one course with all their terms. */
+    private static final String CORRECTION_COLLATE_QUERY = "{\"multi_match\": {\"query\": \"{{suggestion}}\", "
+            + "\"fields\": [\"title.standard\", \"description\"], \"operator\": \"and\"}}";
     private static final String DEFAULT_SORT = "upcoming";
+    private static final String AGE_RANGE_FIELD = AgeFilter.AGE_RANGE_FIELD;
     private static final int DEFAULT_SUGGESTION_SIZE = 10;
+    /** What the slow-query log shows for a caller that got a coalesced or prefetched response. */
+    private static final String SHARED_SEARCH = "(answered by a concurrent or prefetched search)";
+    private static final DateTimeFormatter ES_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 
     private final ElasticsearchClient elasticsearchClient;
-
-    @Value("${app.elasticsearch.index.courses}")
-    private String coursesIndex;
+    private final SlowQueryLog slowQueryLog;
+    private final LocalCourseIndex localCourseIndex;
+    private final SearchCoalescer searchCoalescer;
+    private final CourseFacets courseFacets;
+    private final CourseIndexLayout courseIndexLayout;
+    private final RestClient restClient;
+    private final CourseHitStreamer courseHitStreamer;
+    private final ObjectMapper objectMapper;
+    private final WireFormat wireFormat;
+    private final TrafficSampler trafficSampler;
+    private final CourseSuggestIndex courseSuggestIndex;
+    private final SearchBudget searchBudget;
+    private final SearchPrefetcher searchPrefetcher;
+    private final DateFilterRounding dateFilterRounding;
+
+    /**
+     * Hit-count limit for filter-only searches in the index sort order (upcoming). Once this
+     * many hits are counted Lucene can stop collecting early; 0 disables counting entirely.
+     */
+    @Value("${app.search.early-termination.track-total-hits:1000}")
+    private int earlyTerminationTrackTotalHits;
+
+    /**
+     * Filter ages with one intersects query on {@code ageRange} instead of a range query on
+     * each of {@code minAge} and {@code maxAge}: {@code true}, {@code false}, or {@code auto}
+     * to do so once every course index has the field in its mapping (indices created before
+     * it existed don't, until a reload).
+     */
+    @Value("${app.search.age-range-field:auto}")
+    private String ageRangeField;
+
+    // Whether every course index maps ageRange, in auto mode; null until checked after a (re)load
+    private volatile Boolean ageRangeMapped;
+
+    /** Run text queries tier by tier ({@link QueryTier}), widening only on too few hits. */
+    @Value("${app.search.tiered.enabled:true}")
+    private boolean tieredEnabled;
+
+    /** Hits a tier must find to answer; below this the next, more expensive tier runs. */
+    @Value("${app.search.tiered.min-hits:10}")
+    private long tieredMinHits;
+
+    /** Ask for a spelling correction of text queries ("did you mean") in the same search round-trip. */
+    @Value("${app.search.did-you-mean.enabled:true}")
+    private boolean didYouMeanEnabled;
+
+    /** When a text query finds nothing and a correction exists, search for the correction instead. */
+    @Value("${app.search.did-you-mean.auto-correct:true}")
+    private boolean autoCorrect;
+
+    /**
+     * Fall back to the completion field of the course documents when the suggest index has
+     * nothing, e.g. for courses written before it existed or by other tools.
+     */
+    @Value("${app.suggest.main-index-fallback:true}")
+    private boolean suggestMainIndexFallback;
+
+    /** Copy hits' {@code _source} straight into the response instead of decoding and re-encoding them. */
+    @Value("${app.search.pass-through.enabled:false}")
+    private boolean passThroughEnabled;
+
+    /**
+     * A binary wire format is only used by pass-through searches, which skip coalescing,
+     * prefetching, the facet cache and conditional requests. That has to be asked for with
+     * {@code app.search.pass-through.enabled}, not follow from a transport setting.
+     */
+    @PostConstruct
+    void checkWireFormat() {
+        if (wireFormat.isBinary() && !passThroughEnabled) {
+            throw new IllegalStateException("app.elasticsearch.wire-format=" + wireFormat.getFormat().name().toLowerCase()
+                    + " only applies to pass-through searches; set app.search.pass-through.enabled=true as well");
+        }
+    }
 
     public CourseSearchResponse searchCourses(CourseSearchRequest request) {
         if (request == null) {
             throw new IllegalArgumentException("Request cannot be null");
         }
 
+        trafficSampler.record(request);
+        long start = System.nanoTime();
+        // The search this caller ran, if it did not join one that was running or prefetched
+        AtomicReference<SearchRequest> executed = new AtomicReference<>();
+        CourseSearchResponse response = null;
         try {
             log.info("Searching with request: {}", request);
-            SearchRequest searchRequest = buildSearchRequest(request);
-            log.debug("Final Elasticsearch query: {}", searchRequest.toString());
+            CourseSearchRequest key = QueryFingerprint.normalize(request);
+            response = searchPrefetcher.get(key);
+            if (response == null) {
+                response = searchCoalescer.execute(key, () -> executeSearch(request, executed::set));
+            }
+            searchPrefetcher.prefetchNext(key, response, this::executeSearch);
+            return response;
+        } finally {
+            // The query is only rendered by the slow-query log, and only when over the threshold
+            slowQueryLog.record(request, response != null ? response.getTier() : null,
+                    () -> executed.get() != null ? executed.get() : SHARED_SEARCH, System.nanoTime() - start);
+        }
+    }
 
-            SearchResponse<CourseDocument> response = elasticsearchClient.search(searchRequest, CourseDocument.class);
-            log.info("Search response - Total hits: {}",
-                    response.hits().total() != null ? response.hits().total().value() : "null");
+    private CourseSearchResponse executeSearch(CourseSearchRequest request) {
+        return executeSearch(request, searchRequest -> {
+        });
+    }
+
+    /**
+     * Runs a search, handing {@code executed} each Elasticsearch request as it is sent, so the
+     * last one is the request that answered.
+     */
+    private CourseSearchResponse executeSearch(CourseSearchRequest request, Consumer<SearchRequest> executed) {
+        if (localCourseIndex.isPreferred()) {
+            return localCourseIndex.search(request);
+        }
+
+        try {
+            Map<String, List<FacetBucket>> cachedFacets = courseFacets.isCacheable(request)
+                    ? courseFacets.getCached(request)
+                    : null;
+            boolean withAggregations = request.isFacets() && cachedFacets == null;
+
+            SearchBudget.Deadline deadline = searchBudget.forSearch();
+            SearchProfileReport profile = request.isProfile() ? new SearchProfileReport() : null;
+            long start = System.nanoTime();
+
+            CourseSearchRequest effective = request;
+            SearchResponse<CourseDocument> response = null;
+            QueryTier answered = null;
+            String suggestion = null;
+            List<QueryTier> tiers = tiersFor(request);
+            for (int i = 0; i < tiers.size(); i++) {
+                QueryTier tier = tiers.get(i);
+                if (i > 0 && deadline.isExpired()) {
+                    log.info("Search budget spent, answering with the {} tier", answered.label());
+                    break;
+                }
+                // The correction is asked for once, together with the cheapest tier
+                boolean correcting = i == 0 && wantsCorrection(request);
+                response = search(effective, withAggregations, tier, correcting, deadline, profile, executed);
+                answered = tier;
+                if (correcting) {
+                    suggestion = extractCorrection(response, request);
+                }
+                if (effective == request && canAutoCorrect(totalOf(response), suggestion) && !deadline.isExpired()) {
+                    log.info("No hits for '{}', searching for '{}' instead", request.getQ(), suggestion);
+                    effective = corrected(request, suggestion);
+                    response = search(effective, withAggregations, tier, false, deadline, profile, executed);
+                }
+                log.info("Search response ({} tier) - Total hits: {}", tier.label(),
+                        totalOf(response) != null ? totalOf(response) : "null");
+                // A tier that ran out of time would not get further with a wider query
+                if (hasEnoughHits(totalOf(response), tier) || response.timedOut()) {
+                    break;
+                }
+            }
+
+            long mappingStart = System.nanoTime();
+            CourseSearchResponse searchResponse = buildSearchResponse(response, effective);
+            searchResponse.setTier(tierLabel(request, answered));
+            searchResponse.setSuggestion(suggestion);
+            if (effective != request) {
+                searchResponse.setCorrectedQuery(effective.getQ());
+            }
+            if (cachedFacets != null) {
+                searchResponse.setFacets(cachedFacets);
+            } else if (withAggregations) {
+                searchResponse.setFacets(courseFacets.extract(response.aggregations()));
+                if (courseFacets.isCacheable(request) && searchResponse.isComplete()) {
+                    courseFacets.cache(request, searchResponse.getFacets());
+                }
+            }
+            if (profile != null) {
+                long end = System.nanoTime();
+                profile.setMappingMs(SearchProfiles.toMillis(end - mappingStart));
+                profile.setTotalMs(SearchProfiles.toMillis(end - start));
+                searchResponse.setProfile(profile);
+            }
+            return searchResponse;
+        } catch (Exception e) {
+            if (localCourseIndex.isAvailable()) {
+                log.warn("Elasticsearch search failed, serving from local replica: {}", e.getMessage());
+                return degraded(localCourseIndex.search(request));
+            }
+            log.error("Error searching courses with request: {}", request, e);
+            throw new RuntimeException("Failed to search courses", e);
+        }
+    }
+
+    /**
+     * Builds and runs one search within what is left of {@code deadline}, handing the request to
+     * {@code executed} before sending it. When profiling, also
+     * records the time spent building the request and in the client call, and the Profile API
+     * breakdown of the response.
+     */
+    private SearchResponse<CourseDocument> search(CourseSearchRequest request, boolean withAggregations,
+                                                  QueryTier tier, boolean withCorrection,
+                                                  SearchBudget.Deadline deadline,
+                                                  SearchProfileReport profile,
+                                                  Consumer<SearchRequest> executed) throws IOException {
+        long start = System.nanoTime();
+        SearchRequest searchRequest = buildSearchRequest(request, withAggregations, tier, withCorrection, deadline);
+        long built = System.nanoTime();
+        executed.accept(searchRequest);
+        SearchResponse<CourseDocument> response =
+                deadline.apply(elasticsearchClient).search(searchRequest, CourseDocument.class);
+        if (profile != null) {
+            long searched = System.nanoTime();
+            SearchProfileReport.Round round = new SearchProfileReport.Round();
+            round.setTier(tierLabel(request, tier));
+            round.setQuery(request.getQ());
+            round.setBuildMs(SearchProfiles.toMillis(built - start));
+            round.setSearchMs(SearchProfiles.toMillis(searched - built));
+            round.setTookMs(response.took());
+            round.setTransportMs(Math.max(0, round.getSearchMs() - response.took()));
+            round.setShards(SearchProfiles.shards(response.profile()));
+            profile.getRounds().add(round);
+        }
+        return response;
+    }
+
+    /**
+     * Whether {@link #streamCourses} can answer the request: pages without facets or
+     * highlights that are served by Elasticsearch.
+     */
+    public boolean canPassThrough(CourseSearchRequest request) {
+        return passThroughEnabled
+                && !request.isFacets()
+                && !request.isProfile()
+                && !wantsHighlights(request)
+                && !localCourseIndex.isPreferred();
+    }
+
+    /**
+     * Pass-through variant of {@link #searchCourses}: the raw Elasticsearch response is
+     * transcoded into the response envelope by {@link CourseHitStreamer}, without binding
+     * the hits to {@link CourseDocument}s. Identical searches are not coalesced here.
+     */
+    public void streamCourses(CourseSearchRequest request, OutputStream out) throws IOException {
+        streamCourses(request, out, complete -> {
+        });
+    }
+
+    /**
+     * As {@link #streamCourses(CourseSearchRequest, OutputStream)}, telling {@code beforeWrite}
+     * whether the page is complete (not timed out, partial or degraded) just before its first
+     * byte goes to {@code out}, so that validators can still be added to the response headers.
+     */
+    public void streamCourses(CourseSearchRequest request, OutputStream out, Consumer<Boolean> beforeWrite)
+            throws IOException {
+        trafficSampler.record(request);
+        long start = System.nanoTime();
+        SearchRequest executed = null;
+        String executedTier = null;
+        try {
+            SearchBudget.Deadline deadline = searchBudget.forSearch();
+            List<QueryTier> tiers = tiersFor(request);
+            CourseSearchRequest effective = request;
+            String suggestion = null;
+            for (int i = 0; i < tiers.size(); i++) {
+                QueryTier tier = tiers.get(i);
+                boolean correcting = i == 0 && wantsCorrection(request);
+                boolean last = i == tiers.size() - 1;
+
+                // Only the widest tier goes straight out; a narrower one, or one that a corrected
+                // search may still replace, is buffered until it is known to answer
+                ByteArrayOutputStream buffer = last && !correcting ? null : new ByteArrayOutputStream();
+                executed = buildSearchRequest(effective, false, tier, correcting, deadline);
+                executedTier = tierLabel(request, tier);
+                CourseHitStreamer.Written written = streamTier(request, effective, executed, deadline,
+                        streamLabels(request, effective, tier, suggestion), buffer, out, beforeWrite);
+                if (written == null) {
+                    return;
+                }
+                if (correcting) {
+                    suggestion = written.suggestion();
+                }
+                if (effective == request && canAutoCorrect(written.total(), suggestion) && !deadline.isExpired()) {
+                    log.info("No hits for '{}', searching for '{}' instead", request.getQ(), suggestion);
+                    effective = corrected(request, suggestion);
+                    buffer = last ? null : new ByteArrayOutputStream();
+                    executed = buildSearchRequest(effective, false, tier, false, deadline);
+                    written = streamTier(request, effective, executed, deadline,
+                            streamLabels(request, effective, tier, suggestion), buffer, out, beforeWrite);
+                    if (written == null) {
+                        return;
+                    }
+                }
+                if (buffer == null) {
+                    return;
+                }
+                if (last || hasEnoughHits(written.total(), tier) || written.timedOut() || deadline.isExpired()) {
+                    beforeWrite.accept(written.complete());
+                    buffer.writeTo(out);
+                    return;
+                }
+            }
+        } finally {
+            SearchRequest answered = executed;
+            slowQueryLog.record(request, executedTier, () -> answered, System.nanoTime() - start);
+        }
+    }
 
-            return buildSearchResponse(response, request);
+    /**
+     * Runs {@code searchRequest}, one tier of a pass-through search for {@code effective}, and
+     * writes its envelope to {@code buffer}, or straight to {@code out} if there is none. If
+     * Elasticsearch fails, the local replica (if any) answers straight to {@code out} and null
+     * is returned.
+     */
+    private CourseHitStreamer.Written streamTier(CourseSearchRequest request, CourseSearchRequest effective,
+                                                 SearchRequest searchRequest, SearchBudget.Deadline deadline,
+                                                 Map<String, String> labels, ByteArrayOutputStream buffer,
+                                                 OutputStream out, Consumer<Boolean> beforeWrite)
+            throws IOException {
+        InputStream searchResponse;
+        try {
+            searchResponse = executeRawSearch(searchRequest, deadline);
         } catch (Exception e) {
+            if (localCourseIndex.isAvailable()) {
+                log.warn("Elasticsearch search failed, serving from local replica: {}", e.getMessage());
+                CourseSearchResponse response = degraded(localCourseIndex.search(request));
+                beforeWrite.accept(false);
+                objectMapper.writeValue(out, response);
+                return null;
+            }
             log.error("Error searching courses with request: {}", request, e);
             throw new RuntimeException("Failed to search courses", e);
         }
+        try (InputStream in = searchResponse) {
+            if (buffer != null) {
+                return courseHitStreamer.write(wireFormat.createParser(in), effective, labels, buffer);
+            }
+            return courseHitStreamer.write(wireFormat.createParser(in), effective, labels, out, beforeWrite);
+        }
+    }
+
+    private static CourseSearchResponse degraded(CourseSearchResponse response) {
+        response.setDegraded(true);
+        return response;
+    }
+
+    /** The fields {@link #streamCourses} adds to the envelope, as {@link #executeSearch} sets them. */
+    private static Map<String, String> streamLabels(CourseSearchRequest request, CourseSearchRequest effective,
+                                                    QueryTier tier, String suggestion) {
+        Map<String, String> labels = new LinkedHashMap<>();
+        String tierLabel = tierLabel(request, tier);
+        if (tierLabel != null) {
+            labels.put("tier", tierLabel);
+        }
+        if (suggestion != null) {
+            labels.put("suggestion", suggestion);
+        }
+        if (effective != request) {
+            labels.put("correctedQuery", effective.getQ());
+        }
+        return labels;
+    }
+
+    /**
+     * Runs the search over the low-level client, in the configured wire format, and returns
+     * the (buffered) response body. The client gives up waiting with {@code deadline}.
+     */
+    private InputStream executeRawSearch(SearchRequest searchRequest, SearchBudget.Deadline deadline)
+            throws IOException {
+        JsonpMapper mapper = elasticsearchClient._jsonpMapper();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator generator = mapper.jsonProvider().createGenerator(body)) {
+            searchRequest.serialize(generator, mapper);
+        }
+
+        Request request = new Request(
+                SearchRequest._ENDPOINT.method(searchRequest),
+                SearchRequest._ENDPOINT.requestUrl(searchRequest));
+        request.addParameters(SearchRequest._ENDPOINT.queryParameters(searchRequest));
+        request.addParameter("filter_path", CourseHitStreamer.FILTER_PATH);
+        wireFormat.setBody(request, wireFormat.fromJson(body.toByteArray()));
+        if (deadline.isBounded()) {
+            request.setOptions(request.getOptions().toBuilder().setRequestConfig(deadline.requestConfig()));
+        }
+        return restClient.performRequest(request).getEntity().getContent();
     }
 
-    public List<String> getSuggestions(String query) {
+    /**
+     * Completions for {@code query} from the suggest index ({@link CourseSuggestIndex}),
+     * optionally restricted to a category and/or type. Lookups that fail, time out or run out
+     * of budget before their fallback come back with what was found, marked incomplete.
+     */
+    public CourseSuggestIndex.Suggestions getSuggestions(String query, String category,
+                                                         CourseDocument.CourseType type) {
         if (query == null || query.trim().isEmpty()) {
-            return Collections.emptyList();
+            return new CourseSuggestIndex.Suggestions(Collections.emptyList(), true);
         }
 
         try {
-            SearchResponse<CourseDocument> response = elasticsearchClient.search(
-                    buildSuggestionRequest(query),
+            SearchBudget.Deadline deadline = searchBudget.forSuggest();
+            CourseSuggestIndex.Suggestions suggestions =
+                    courseSuggestIndex.suggest(query, category, type, DEFAULT_SUGGESTION_SIZE, deadline);
+            if (!suggestions.values().isEmpty() || !suggestMainIndexFallback || category != null || type != null) {
+                return suggestions;
+            }
+            if (deadline.isExpired()) {
+                // The fallback would have run, so an empty answer here is not the whole answer
+                return CourseSuggestIndex.Suggestions.incomplete();
+            }
+
+            // The course documents' own completion field has no contexts, so only unfiltered lookups fall back
+            SearchResponse<CourseDocument> response = deadline.apply(elasticsearchClient).search(
+                    buildSuggestionRequest(query, deadline),
                     CourseDocument.class
             );
-            return extractSuggestions(response);
+            return new CourseSuggestIndex.Suggestions(extractSuggestions(response),
+                    suggestions.complete() && CourseSuggestIndex.isComplete(response));
         } catch (Exception e) {
             log.error("Error getting suggestions for query: {}", query, e);
-            return Collections.emptyList();
+            return CourseSuggestIndex.Suggestions.incomplete();
         }
     }
 
-    private SearchRequest buildSuggestionRequest(String query) {
+    private SearchRequest buildSuggestionRequest(String query, SearchBudget.Deadline deadline) {
+        Time timeout = deadline.timeout();
         return SearchRequest.of(s -> s
-                .index(coursesIndex)
+                .index(courseIndexLayout.readIndex())
+                .timeout(timeout != null ? timeout.time() : null)
                 .suggest(suggest -> suggest
                         .suggesters(SUGGESTER_NAME, suggester -> suggester
                                 .prefix(query)
@@ -99,70 +510,155 @@ public class CourseSearchService {
                 .collect(Collectors.toList());
     }
 
-    private SearchRequest buildSearchRequest(CourseSearchRequest request) {
-        return SearchRequest.of(s -> s
-                .index(coursesIndex)
-                .query(buildQuery(request))
-                .sort(buildSort(request.getSort()))
-                .from(request.getPage() * request.getSize())
-                .size(request.getSize())
-                .highlight(h -> h
+    private SearchRequest buildSearchRequest(CourseSearchRequest request, boolean withAggregations, QueryTier tier,
+                                             boolean withCorrection, SearchBudget.Deadline deadline) {
+        Time timeout = deadline.timeout();
+        return SearchRequest.of(s -> {
+            // Always the whole read alias, so partitions another instance created or dropped
+            // meanwhile are neither missed nor asked for; earlier months are skipped by
+            // Elasticsearch instead (see CourseIndexLayout#preFilterShardSize)
+            s.index(courseIndexLayout.readIndex())
+                    .routing(courseIndexLayout.searchRouting(request))
+                    // ageRange is only there to be queried; pass-through copies _source as it is
+                    .source(src -> src.filter(f -> f.excludes(AGE_RANGE_FIELD)))
+                    .query(buildQuery(request, tier))
+                    .sort(buildSort(request.getSort()))
+                    .from(request.getPage() * request.getSize())
+                    .size(request.getSize());
+            if (wantsHighlights(request)) {
+                s.highlight(h -> h
                         .fields("title", f -> f.preTags("<em>").postTags("</em>"))
                         .fields("description", f -> f.preTags("<em>").postTags("</em>"))
+                );
+            }
+            if (timeout != null) {
+                // Shards stop collecting when the budget is spent and return the hits they have
+                s.timeout(timeout.time())
+                        .allowPartialSearchResults(searchBudget.allowPartialResults());
+            }
+            if (request.isProfile()) {
+                s.profile(true);
+            }
+            if (withCorrection) {
+                s.suggest(correctionSuggester(request.getQ().trim().toLowerCase()));
+            }
+            Long preFilterShardSize = courseIndexLayout.preFilterShardSize(request);
+            if (preFilterShardSize != null) {
+                s.preFilterShardSize(preFilterShardSize);
+            }
+            if (!StringUtils.hasText(request.getQ())) {
+                // Filter-only pages are shared by many users; let the shards cache them
+                s.requestCache(true);
+            }
+            if (withAggregations) {
+                s.aggregations(courseFacets.aggregations(useAgeRangeField()));
+            } else if (canTerminateEarly(request)) {
+                s.trackTotalHits(t -> earlyTerminationTrackTotalHits > 0
+                        ? t.count(earlyTerminationTrackTotalHits)
+                        : t.enabled(false));
+            }
+            return s;
+        });
+    }
+
+    /** Highlighting is opt-in, and only a text query has terms to highlight. */
+    private static boolean wantsHighlights(CourseSearchRequest request) {
+        return request.isHighlight() && StringUtils.hasText(request.getQ());
+    }
+
+    private boolean wantsCorrection(CourseSearchRequest request) {
+        return didYouMeanEnabled && StringUtils.hasText(request.getQ());
+    }
+
+    /**
+     * Phrase suggester over the unstemmed title, with candidate terms from the title and the
+     * description. Terms that exist in the index are left alone, so a correctly spelled query
+     * costs little; corrections that would match no course are dropped by the collate query.
+     */
+    private static Suggester correctionSuggester(String query) {
+        return Suggester.of(s -> s
+                .text(query)
+                .suggesters(CORRECTION_SUGGESTER_NAME, f -> f
+                        .phrase(p -> p
+                                .field("title.standard")
+                                .size(1)
+                                .maxErrors(2.0)
+                                .directGenerator(d -> d.field("title.standard").suggestMode(SuggestMode.Missing))
+                                .directGenerator(d -> d.field("description").suggestMode(SuggestMode.Missing))
+                                .collate(c -> c
+                                        .query(q -> q.source(CORRECTION_COLLATE_QUERY))
+                                        .prune(false)
+                                )
+                        )
                 )
         );
     }
 
-    private Query buildQuery(CourseSearchRequest request) {
-        BoolQuery.Builder boolQuery = new BoolQuery.Builder();
+    private static String extractCorrection(SearchResponse<CourseDocument> response, CourseSearchRequest request) {
+        String query = request.getQ().trim();
+        return Optional.ofNullable(response.suggest())
+                .map(s -> s.get(CORRECTION_SUGGESTER_NAME))
+                .orElse(Collections.emptyList())
+                .stream()
+                .filter(s -> s.isPhrase())
+                .flatMap(s -> s.phrase().options().stream())
+                .map(PhraseSuggestOption::text)
+                .filter(text -> text != null && !text.equalsIgnoreCase(query))
+                .findFirst()
+                .orElse(null);
+    }
 
-        // Search query handling
-        if (StringUtils.hasText(request.getQ())) {
-            String query = request.getQ().trim().toLowerCase();
-            log.info("Building search query for: '{}'", query);
-
-            // Exact match with high boost
-            boolQuery.should(Query.of(q -> q
-                    .match(m -> m
-                            .field("title")
-                            .query(query)
-                            .boost(3.0f)
-                    )
-            ));
+    /** A search that found nothing is re-run once with the correction, if there is one. */
+    private boolean canAutoCorrect(Long total, String suggestion) {
+        return autoCorrect && suggestion != null && total != null && total == 0;
+    }
 
-            // Edge ngram for partial matches
-            boolQuery.should(Query.of(q -> q
-                    .match(m -> m
-                            .field("title.edge_ngram")
-                            .query(query)
-                            .boost(2.0f)
-                    )
-            ));
+    private static CourseSearchRequest corrected(CourseSearchRequest request, String suggestion) {
+        CourseSearchRequest corrected = QueryFingerprint.normalize(request);
+        corrected.setQ(suggestion);
+        return corrected;
+    }
 
-            // Standard multi-match with fuzziness
-            boolQuery.should(Query.of(q -> q
-                    .multiMatch(m -> m
-                            .query(query)
-                            .fields("title^3", "description^2", "category")
-                            .type(TextQueryType.BestFields)
-                            .fuzziness("AUTO")
-                            .operator(Operator.Or)
-                    )
-            ));
+    private static Long totalOf(SearchResponse<CourseDocument> response) {
+        return response.hits().total() != null ? response.hits().total().value() : null;
+    }
 
-            // Wildcard as fallback
-            boolQuery.should(Query.of(q -> q
-                    .wildcard(w -> w
-                            .field("title")
-                            .value("*" + query + "*")
-                            .boost(0.5f)
-                    )
-            ));
+    /**
+     * The index is sorted on nextSessionDate, so a search without relevance scoring that
+     * sorts by upcoming session can stop once it has the requested page, as long as it
+     * does not also have to count every hit.
+     */
+    private boolean canTerminateEarly(CourseSearchRequest request) {
+        return !StringUtils.hasText(request.getQ())
+                && DEFAULT_SORT.equals(QueryFingerprint.normalizeSort(request.getSort()));
+    }
 
-            boolQuery.minimumShouldMatch("1");
-        } else {
-            boolQuery.must(Query.of(q -> q.matchAll(MatchAllQuery.of(m -> m))));
+    /**
+     * Tiers to try in order. Text queries start with the cheap exact/prefix tier and only
+     * widen to fuzzy and infix matching when the narrower tier finds too few hits.
+     */
+    private List<QueryTier> tiersFor(CourseSearchRequest request) {
+        if (!tieredEnabled || !StringUtils.hasText(request.getQ())) {
+            return List.of(QueryTier.INFIX);
         }
+        return List.of(QueryTier.values());
+    }
+
+    /**
+     * Whether a tier's hits are enough to answer. This looks at the total, not the page, so
+     * every page of a query is answered by the same tier.
+     */
+    private boolean hasEnoughHits(Long total, QueryTier tier) {
+        return tier == QueryTier.INFIX || total == null || total >= tieredMinHits;
+    }
+
+    private static String tierLabel(CourseSearchRequest request, QueryTier tier) {
+        return StringUtils.hasText(request.getQ()) && tier != null ? tier.label() : null;
+    }
+
+    /** The query (filters and text clauses) of a search; also stored as a saved search's percolator query. */
+    Query buildQuery(CourseSearchRequest request, QueryTier tier) {
+        BoolQuery.Builder boolQuery = new BoolQuery.Builder();
 
         // Add filters
         addAgeFilters(request, boolQuery);
@@ -171,26 +667,62 @@ public class CourseSearchService {
         addPriceFilters(request, boolQuery);
         addDateFilter(request, boolQuery);
 
+        if (!StringUtils.hasText(request.getQ())) {
+            // Filter-only: the results are sorted by field, so skip scoring and run in filter context
+            BoolQuery filters = boolQuery.build();
+            return Query.of(q -> q.constantScore(c -> c.filter(filters._toQuery())));
+        }
+
+        // Text query: exact and partial matches, widened to fuzzy and wildcard matches by tier
+        String query = request.getQ().trim().toLowerCase();
+        log.info("Building {} search query for: '{}'", tier.label(), query);
+        boolQuery.should(tier.textClauses(query));
+        boolQuery.minimumShouldMatch("1");
+
         return boolQuery.build()._toQuery();
     }
 
-    private void addAgeFilters(CourseSearchRequest request, BoolQuery.Builder boolQuery) {
-        if (request.getMinAge() != null) {
-            boolQuery.filter(Query.of(q -> q
-                    .range(RangeQuery.of(r -> r
-                            .field("maxAge")
-                            .gte(JsonData.of(request.getMinAge()))
-                    ))
-            ));
+    private boolean useAgeRangeField() {
+        if (!"auto".equalsIgnoreCase(ageRangeField)) {
+            return Boolean.parseBoolean(ageRangeField);
         }
+        Boolean mapped = ageRangeMapped;
+        if (mapped == null) {
+            try {
+                mapped = isMappedInEveryIndex(AGE_RANGE_FIELD);
+                ageRangeMapped = mapped;
+                log.info("{} is {}mapped in every course index, filtering ages on {}", AGE_RANGE_FIELD,
+                        mapped ? "" : "not ", mapped ? AGE_RANGE_FIELD : "minAge and maxAge");
+            } catch (Exception e) {
+                // Checked again next time; the two bounds work on any index
+                log.warn("Could not read the course mappings: {}", e.getMessage());
+                return false;
+            }
+        }
+        return mapped;
+    }
 
-        if (request.getMaxAge() != null) {
-            boolQuery.filter(Query.of(q -> q
-                    .range(RangeQuery.of(r -> r
-                            .field("minAge")
-                            .lte(JsonData.of(request.getMaxAge()))
-                    ))
-            ));
+    private boolean isMappedInEveryIndex(String field) throws IOException {
+        Map<String, TypeFieldMappings> indices = elasticsearchClient.indices().getFieldMapping(g -> g
+                .index(courseIndexLayout.readIndex())
+                .fields(field)
+                .ignoreUnavailable(true)
+        ).result();
+        return !indices.isEmpty() && indices.values().stream()
+                .allMatch(mappings -> mappings.mappings().containsKey(field));
+    }
+
+    /** A (re)load may have created the course indices anew, with or without the field. */
+    @EventListener
+    public void onCourseIngest(CourseIngestEvent event) {
+        if (event.isFullReload()) {
+            ageRangeMapped = null;
+        }
+    }
+
+    private void addAgeFilters(CourseSearchRequest request, BoolQuery.Builder boolQuery) {
+        if (request.getMinAge() != null || request.getMaxAge() != null) {
+            boolQuery.filter(AgeFilter.overlapping(request.getMinAge(), request.getMaxAge(), useAgeRangeField()));
         }
     }
 
@@ -238,10 +770,11 @@ public class CourseSearchService {
 
     private void addDateFilter(CourseSearchRequest request, BoolQuery.Builder boolQuery) {
         if (request.getStartDate() != null) {
+            String startDate = dateFilterRounding.effectiveStart(request.getStartDate()).format(ES_DATE_FORMATTER);
             boolQuery.filter(Query.of(q -> q
                     .range(RangeQuery.of(r -> r
                             .field("nextSessionDate")
-                            .gte(JsonData.of(request.getStartDate().toString()))
+                            .gte(JsonData.of(startDate))
                     ))
             ));
         }
@@ -273,20 +806,50 @@ public class CourseSearchService {
                 .filter(Objects::nonNull)
                 .collect(Collectors.toList());
 
-        long total = Optional.ofNullable(response.hits())
+        TotalHits totalHits = Optional.ofNullable(response.hits())
                 .map(hits -> hits.total())
-                .map(totalHits -> totalHits.value())
-                .orElse(0L);
+                .orElse(null);
+        long total;
+        String totalRelation = null;
+        if (totalHits != null) {
+            total = totalHits.value();
+            if (totalHits.relation() == TotalHitsRelation.Gte) {
+                totalRelation = "gte";
+            }
+        } else {
+            // Hit counting was disabled: all that is known is that the hits so far exist
+            total = (long) request.getPage() * request.getSize() + courses.size();
+            totalRelation = "gte";
+        }
 
         int totalPages = (int) Math.ceil((double) total / request.getSize());
 
-        return new CourseSearchResponse(total, courses, request.getPage(), request.getSize(), totalPages);
+        CourseSearchResponse searchResponse =
+                new CourseSearchResponse(total, courses, request.getPage(), request.getSize(), totalPages);
+        searchResponse.setTotalRelation(totalRelation);
+        searchResponse.setTimedOut(response.timedOut());
+        searchResponse.setPartial(response.timedOut()
+                || (response.shards() != null && response.shards().failed().intValue() > 0));
+        if (wantsHighlights(request)) {
+            searchResponse.setHighlights(extractHighlights(response));
+        }
+        return searchResponse;
+    }
+
+    private Map<String, Map<String, List<String>>> extractHighlights(SearchResponse<CourseDocument> response) {
+        Map<String, Map<String, List<String>>> highlights = new LinkedHashMap<>();
+        for (Hit<CourseDocument> hit : response.hits().hits()) {
+            if (hit.highlight() != null && !hit.highlight().isEmpty()) {
+                highlights.put(hit.id(), hit.highlight());
+            }
+        }
+        return highlights;
     }
 
     public long getTotalCourseCount() {
         try {
             SearchRequest countRequest = SearchRequest.of(s -> s
-                    .index(coursesIndex)
+                    .index(courseIndexLayout.readIndex())
                     .query(Query.of(q -> q.matchAll(MatchAllQuery.of(m -> m))))
                     .size(0)
             );
@@ -297,7 +860,7 @@ public class CourseSearchService {
                     .map(totalHits -> totalHits.value())
                     .orElse(0L);
 
-            log.info("Total courses in index '{}': {}", coursesIndex, total);
+            log.info("Total courses in index '{}': {}", courseIndexLayout.readIndex(), total);
             return total;
         } catch (Exception e) {
             log.error("Error counting courses", e);
@@ -305,10 +868,26 @@ public class CourseSearchService {
         }
     }
 
+    public ShardRequestCacheStats getRequestCacheStats() {
+        try {
+            IndicesStatsResponse stats = elasticsearchClient.indices()
+                    .stats(s -> s.index(courseIndexLayout.readIndex()).metric("request_cache"));
+            RequestCacheStats cache = stats.all().total().requestCache();
+            long lookups = cache.hitCount() + cache.missCount();
+            double hitRate = lookups == 0 ? 0 : (double) cache.hitCount() / lookups;
+
+            return new ShardRequestCacheStats(courseIndexLayout.readIndex(), cache.hitCount(), cache.missCount(),
+                    cache.evictions(), cache.memorySizeInBytes(), hitRate);
+        } catch (Exception e) {
+            log.error("Error reading request cache stats", e);
+            throw new RuntimeException("Failed to read request cache stats", e);
+        }
+    }
+
     public List<CourseDocument> getAllCourses() {
         try {
             SearchRequest searchRequest = SearchRequest.of(s -> s
-                    .index(coursesIndex)
+                    .index(courseIndexLayout.readIndex())
                     .query(Query.of(q -> q.matchAll(MatchAllQuery.of(m -> m))))
                     .size(100)
             );
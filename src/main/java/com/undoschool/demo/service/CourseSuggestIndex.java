@@ -0,0 +1,216 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.CompletionContext;
+import co.elastic.clients.elasticsearch.core.search.CompletionSuggestOption;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.undoschool.demo.model.CourseDocument;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * A small, separate index holding only the completion entries for the course catalog,
+ * so that autocomplete does not read (or bloat) the course documents and suggest traffic
+ * does not compete with searches for the {@code courses} index. Each entry carries its
+ * course's category and type as contexts, so suggestions can be filtered on either.
+ * <p>
+ * It is rebuilt from every {@link CourseIngestEvent}: replaced on full reloads (sample
+ * data loading, reindexing) and updated for partial ones.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CourseSuggestIndex {
+
+    private static final String MAPPINGS_PATH = "elasticsearch/courses-suggest-mappings.json";
+    private static final String SUGGESTER_NAME = "course_suggest";
+    private static final String NO_CONTEXT = "none";
+    private static final Set<String> STOP_WORDS = Set.of("comprehensive", "class", "designed", "for", "and", "the");
+
+    private final ElasticsearchClient elasticsearchClient;
+
+    @Value("${app.elasticsearch.index.courses-suggest:courses-suggest}")
+    private String suggestIndex;
+
+    @Value("${app.data.bulk-batch-size:500}")
+    private int batchSize;
+
+    @EventListener
+    public void onCourseIngest(CourseIngestEvent event) {
+        try {
+            if (event.isFullReload()) {
+                replaceAll(event.getCourses());
+            } else {
+                upsert(event.getCourses());
+            }
+        } catch (Exception e) {
+            log.error("Failed to update suggest index '{}'", suggestIndex, e);
+        }
+    }
+
+    public boolean exists() throws IOException {
+        return elasticsearchClient.indices().exists(e -> e.index(suggestIndex)).value();
+    }
+
+    /** Recreates the suggest index with entries for exactly {@code courses}. */
+    public void replaceAll(List<CourseDocument> courses) throws IOException {
+        if (exists()) {
+            elasticsearchClient.indices().delete(d -> d.index(suggestIndex));
+        }
+        TypeMapping mappings;
+        try (InputStream json = new ClassPathResource(MAPPINGS_PATH).getInputStream()) {
+            mappings = TypeMapping.of(b -> b.withJson(json));
+        }
+        elasticsearchClient.indices().create(c -> c
+                .index(suggestIndex)
+                .settings(s -> s.numberOfShards("1"))
+                .mappings(mappings));
+        upsert(courses);
+        log.info("Suggest index '{}' rebuilt with {} courses", suggestIndex, courses.size());
+    }
+
+    /** Adds or replaces the entries of {@code courses}. */
+    public void upsert(List<CourseDocument> courses) throws IOException {
+        for (int i = 0; i < courses.size(); i += batchSize) {
+            List<CourseDocument> batch = courses.subList(i, Math.min(i + batchSize, courses.size()));
+            BulkRequest.Builder bulk = new BulkRequest.Builder();
+            int entries = 0;
+            for (CourseDocument course : batch) {
+                Map<String, Object> entry = entryFor(course);
+                if (entry == null) {
+                    continue;
+                }
+                bulk.operations(op -> op
+                        .index(idx -> idx
+                                .index(suggestIndex)
+                                .id(course.getId())
+                                .document(entry)));
+                entries++;
+            }
+            if (entries == 0) {
+                continue;
+            }
+            BulkResponse response = elasticsearchClient.bulk(bulk.build());
+            for (BulkResponseItem item : response.items()) {
+                if (item.error() != null) {
+                    log.error("Failed to index suggestions for course {}: {}", item.id(), item.error().reason());
+                }
+            }
+        }
+        elasticsearchClient.indices().refresh(r -> r.index(suggestIndex));
+    }
+
+    /**
+     * Completions for {@code prefix}, optionally restricted to a category and/or course type.
+     * Returns no completions if the index does not exist yet.
+     */
+    public Suggestions suggest(String prefix, String category, CourseDocument.CourseType type, int size,
+                                SearchBudget.Deadline deadline) throws IOException {
+        Map<String, List<CompletionContext>> contexts = new HashMap<>();
+        if (StringUtils.hasText(category)) {
+            contexts.put("category", List.of(CompletionContext.of(c -> c.context(ctx -> ctx.category(category)))));
+        }
+        if (type != null) {
+            contexts.put("type", List.of(CompletionContext.of(c -> c.context(ctx -> ctx.category(type.name())))));
+        }
+
+        Time timeout = deadline.timeout();
+        SearchResponse<JsonNode> response = deadline.apply(elasticsearchClient).search(s -> s
+                        .index(suggestIndex)
+                        .ignoreUnavailable(true)
+                        .timeout(timeout != null ? timeout.time() : null)
+                        .source(src -> src.fetch(false))
+                        .suggest(suggest -> suggest
+                                .suggesters(SUGGESTER_NAME, suggester -> suggester
+                                        .prefix(prefix)
+                                        .completion(completion -> completion
+                                                .field("suggest")
+                                                .size(size)
+                                                .skipDuplicates(true)
+                                                .contexts(contexts)
+                                        )
+                                )
+                        ),
+                JsonNode.class);
+
+        List<String> completions = Optional.ofNullable(response.suggest())
+                .map(s -> s.get(SUGGESTER_NAME))
+                .orElse(Collections.emptyList())
+                .stream()
+                .filter(s -> s.isCompletion())
+                .flatMap(s -> s.completion().options().stream())
+                .map(CompletionSuggestOption::text)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new Suggestions(completions, isComplete(response));
+    }
+
+    /** Whether every shard answered in time, so the completions are all there are. */
+    static boolean isComplete(SearchResponse<?> response) {
+        return !response.timedOut()
+                && (response.shards() == null || response.shards().failed().intValue() == 0);
+    }
+
+    /** The suggest-index document for a course, or null if it has nothing to complete. */
+    static Map<String, Object> entryFor(CourseDocument course) {
+        List<String> inputs = inputsFor(course);
+        if (inputs.isEmpty()) {
+            return null;
+        }
+        String category = StringUtils.hasText(course.getCategory()) ? course.getCategory() : NO_CONTEXT;
+        String type = course.getType() != null ? course.getType().name() : NO_CONTEXT;
+        return Map.of("suggest", Map.of(
+                "input", inputs,
+                "contexts", Map.of("category", List.of(category), "type", List.of(type))));
+    }
+
+    /** Title (as is and lower-cased), category and a few significant description words. */
+    static List<String> inputsFor(CourseDocument course) {
+        if (!StringUtils.hasText(course.getTitle())) {
+            return List.of();
+        }
+        List<String> inputs = new ArrayList<>();
+        inputs.add(course.getTitle());
+        inputs.add(course.getTitle().toLowerCase());
+
+        if (course.getCategory() != null) {
+            inputs.add(course.getCategory());
+        }
+
+        if (StringUtils.hasText(course.getDescription())) {
+            Arrays.stream(course.getDescription().toLowerCase().split("\\s+"))
+                    .filter(word -> word.length() > 3)
+                    .filter(word -> !STOP_WORDS.contains(word))
+                    .limit(5)
+                    .forEach(inputs::add);
+        }
+        return inputs;
+    }
+
+    /**
+     * Completions and whether they are the whole answer: false when the lookup timed out,
+     * missed shards, failed or was cut short by its budget.
+     */
+    public record Suggestions(List<String> values, boolean complete) {
+
+        public static Suggestions incomplete() {
+            return new Suggestions(List.of(), false);
+        }
+    }
+}
@@ -4,23 +4,19 @@ import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.undoschool.demo.model.CourseDocument;
-import com.undoschool.demo.repository.CourseRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.data.elasticsearch.BulkFailureException;
-import org.springframework.data.elasticsearch.core.suggest.Completion;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.lang.management.ManagementFactory;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -29,12 +25,14 @@ import java.util.stream.Collectors;
 @Slf4j
 public class DataLoader implements CommandLineRunner {
 
-    private final CourseRepository courseRepository;
     private final ObjectMapper objectMapper;
     private final ElasticsearchClient elasticsearchClient;
-
-    @Value("${app.elasticsearch.index.courses:courses}")
-    private String coursesIndex;
+    private final CourseIndexer courseIndexer;
+    private final CourseIndexLayout courseIndexLayout;
+    private final LocalCourseIndex localCourseIndex;
+    private final SearchWarmup searchWarmup;
+    private final CourseSuggestIndex courseSuggestIndex;
+    private final CourseBootstrap courseBootstrap;
 
     @Value("${app.data.sample-file:course.json}")
     private String sampleDataFile;
@@ -42,6 +40,26 @@ public class DataLoader implements CommandLineRunner {
     @Value("${app.data.force-reload:false}")
     private boolean forceReload;
 
+    @Value("${app.data.connect.max-attempts:8}")
+    private int maxConnectAttempts;
+
+    @Value("${app.data.connect.initial-backoff-ms:200}")
+    private long initialBackoffMs;
+
+    @Value("${app.data.connect.max-backoff-ms:10000}")
+    private long maxBackoffMs;
+
+    /** Progress of the background load, reported through {@link CourseDataHealthIndicator}. */
+    public enum LoadStatus {
+        PENDING, LOADING, WARMING, READY, LOCAL_ONLY, FAILED
+    }
+
+    private volatile LoadStatus status = LoadStatus.PENDING;
+    private volatile long loadDurationMillis = -1;
+    private volatile String failureMessage;
+    private volatile String bootstrapSource;
+    private volatile long bootstrapDurationMillis = -1;
+
     private static final DateTimeFormatter FLEXIBLE_FORMATTER = DateTimeFormatter.ofPattern(
             "[yyyy-MM-dd'T'HH:mm:ss[.SSS][XXX]]" +
                     "[yyyy-MM-dd'T'HH:mm:ss[.SSS]]" +
@@ -51,72 +69,138 @@ public class DataLoader implements CommandLineRunner {
     // Formatter to ensure seconds are always included for Elasticsearch
     private static final DateTimeFormatter ES_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
 
+    /**
+     * Starts loading in the background so that the web tier comes up immediately;
+     * readiness is reported by {@link CourseDataHealthIndicator} once loading is done.
+     */
     @Override
     public void run(String... args) {
-        try {
-            log.info("Starting data loading process...");
+        Thread loader = new Thread(this::loadData, "data-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
 
-            if (!testElasticsearchConnectionWithRetry()) {
-                log.error("Elasticsearch connection failed. Skipping data loading.");
+    public LoadStatus getStatus() {
+        return status;
+    }
+
+    public long getLoadDurationMillis() {
+        return loadDurationMillis;
+    }
+
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    /** Where the catalog was loaded from at startup ({@code json}, {@code snapshot}, {@code dump}), or null. */
+    public String getBootstrapSource() {
+        return bootstrapSource;
+    }
+
+    public long getBootstrapDurationMillis() {
+        return bootstrapDurationMillis;
+    }
+
+    /**
+     * Loads the data, and keeps trying in the background while Elasticsearch is unreachable or
+     * the load fails, so the node becomes ready once Elasticsearch recovers instead of only
+     * after a restart.
+     */
+    private void loadData() {
+        long start = System.currentTimeMillis();
+        status = LoadStatus.LOADING;
+        log.info("Starting data loading process...");
+        while (!loadOnce(start)) {
+            log.debug("Retrying the course data load in {} ms", maxBackoffMs);
+            try {
+                TimeUnit.MILLISECONDS.sleep(maxBackoffMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 return;
             }
+        }
+    }
+
+    /** One attempt at loading the data; false if it has to be retried. */
+    private boolean loadOnce(long start) {
+        try {
+            if (!testElasticsearchConnectionWithRetry()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return true;
+                }
+                if (localCourseIndex.isEnabled()) {
+                    if (status != LoadStatus.LOCAL_ONLY) {
+                        log.error("Elasticsearch connection failed. Loading sample data into the local replica only.");
+                        localCourseIndex.replaceAll(readSampleCourses());
+                        finish(LoadStatus.LOCAL_ONLY, start);
+                    }
+                } else if (status != LoadStatus.FAILED) {
+                    log.error("Elasticsearch connection failed. Skipping data loading until it is reachable.");
+                    failureMessage = "Elasticsearch unreachable after " + maxConnectAttempts + " attempts";
+                    finish(LoadStatus.FAILED, start);
+                }
+                return false;
+            }
 
-            ensureIndexWithProperMapping();
+            courseIndexLayout.ensureIndex();
 
-            long count = courseRepository.count();
+            long count = courseIndexer.count();
             log.info("Current course count: {}", count);
 
             if (count == 0 || forceReload) {
                 if (forceReload && count > 0) {
-                    log.info("Force reload enabled, clearing existing data...");
-                    courseRepository.deleteAll();
-                    Thread.sleep(1000);
+                    log.info("Force reload enabled, replacing existing data...");
                 }
-                loadSampleData();
+                bootstrapCatalog();
             } else {
                 log.info("Course data already exists, skipping data loading");
+                boolean buildSuggestIndex = !courseSuggestIndex.exists();
+                if (localCourseIndex.isEnabled() || buildSuggestIndex) {
+                    List<CourseDocument> courses = courseIndexer.readAll();
+                    if (localCourseIndex.isEnabled()) {
+                        localCourseIndex.replaceAll(courses);
+                    }
+                    if (buildSuggestIndex) {
+                        courseSuggestIndex.replaceAll(courses);
+                    }
+                }
             }
 
             log.info("Data loading process completed successfully");
+            failureMessage = null;
+            finish(LoadStatus.READY, start);
+            return true;
         } catch (Exception e) {
             log.error("Error during data loading initialization", e);
+            if (status != LoadStatus.LOCAL_ONLY) {
+                failureMessage = e.getMessage();
+            }
+            if (status != LoadStatus.LOCAL_ONLY && status != LoadStatus.FAILED) {
+                finish(LoadStatus.FAILED, start);
+            }
+            return false;
         }
     }
 
-    private void ensureIndexWithProperMapping() throws Exception {
-        boolean indexExists = elasticsearchClient.indices()
-                .exists(e -> e.index(coursesIndex))
-                .value();
-
-        if (!indexExists) {
-            elasticsearchClient.indices().create(c -> c
-                    .index(coursesIndex)
-                    .mappings(m -> m
-                            .properties("title", p -> p
-                                    .text(t -> t
-                                            .analyzer("english")
-                                            .fields("keyword", f -> f.keyword(k -> k))
-                                    )
-                            )
-                            .properties("description", p -> p
-                                    .text(t -> t.analyzer("english"))
-                            )
-                            .properties("category", p -> p.keyword(k -> k))
-                            .properties("type", p -> p.keyword(k -> k))
-                            .properties("nextSessionDate", p -> p
-                                    .date(d -> d.format("yyyy-MM-dd'T'HH:mm:ss"))
-                            )
-                            .properties("suggest", p -> p.completion(cp -> cp))
-                    )
-            );
-            log.info("Created index with proper mapping");
+    private void finish(LoadStatus finalStatus, long start) {
+        loadDurationMillis = System.currentTimeMillis() - start;
+        if (finalStatus != LoadStatus.FAILED) {
+            // Stay out of the load balancer until the searches have been warmed up; a node that is
+            // already serving from the local replica stays in while Elasticsearch is warmed up
+            if (status != LoadStatus.LOCAL_ONLY) {
+                status = LoadStatus.WARMING;
+            }
+            searchWarmup.warmUp();
         }
+        status = finalStatus;
+        log.info("Course data {} after {} ms of loading ({} ms since JVM start)",
+                finalStatus, loadDurationMillis, ManagementFactory.getRuntimeMXBean().getUptime());
     }
+
     private boolean testElasticsearchConnectionWithRetry() {
-        int maxRetries = 3;
-        int retryDelaySeconds = 5;
+        long backoffMs = initialBackoffMs;
 
-        for (int i = 0; i < maxRetries; i++) {
+        for (int attempt = 1; attempt <= maxConnectAttempts; attempt++) {
             try {
                 if (elasticsearchClient == null) {
                     log.error("ElasticsearchClient is null - check configuration");
@@ -128,12 +212,15 @@ public class DataLoader implements CommandLineRunner {
                 return true;
 
             } catch (Exception e) {
-                log.warn("Elasticsearch connection attempt {} failed: {}", i + 1, e.getMessage());
+                log.warn("Elasticsearch connection attempt {} failed: {}", attempt, e.getMessage());
 
-                if (i < maxRetries - 1) {
+                if (attempt < maxConnectAttempts) {
                     try {
-                        log.info("Retrying in {} seconds...", retryDelaySeconds);
-                        TimeUnit.SECONDS.sleep(retryDelaySeconds);
+                        // Exponential backoff with jitter, so restarting nodes do not retry in lockstep
+                        long delayMs = backoffMs / 2 + ThreadLocalRandom.current().nextLong(backoffMs / 2 + 1);
+                        log.info("Retrying in {} ms...", delayMs);
+                        TimeUnit.MILLISECONDS.sleep(delayMs);
+                        backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
                     } catch (InterruptedException ie) {
                         Thread.currentThread().interrupt();
                         log.error("Thread interrupted while waiting for retry", ie);
@@ -143,11 +230,45 @@ public class DataLoader implements CommandLineRunner {
             }
         }
 
-        log.error("Failed to connect to Elasticsearch after {} attempts", maxRetries);
+        log.error("Failed to connect to Elasticsearch after {} attempts", maxConnectAttempts);
         return false;
     }
 
+    /**
+     * Fills the course indices from the configured bootstrap source, falling back to the
+     * sample data if a snapshot or dump cannot be restored.
+     */
+    private void bootstrapCatalog() {
+        long start = System.currentTimeMillis();
+        CourseBootstrap.Mode mode = courseBootstrap.getMode();
+        if (mode == CourseBootstrap.Mode.JSON) {
+            loadSampleData();
+        } else {
+            try {
+                courseBootstrap.restore();
+            } catch (Exception e) {
+                log.error("Restoring the catalog from {} failed, loading sample data instead", mode, e);
+                mode = CourseBootstrap.Mode.JSON;
+                loadSampleData();
+            }
+        }
+        bootstrapSource = mode.name().toLowerCase();
+        bootstrapDurationMillis = System.currentTimeMillis() - start;
+        log.info("Catalog bootstrapped from {} in {} ms", bootstrapSource, bootstrapDurationMillis);
+    }
+
     private void loadSampleData() {
+        try {
+            List<CourseDocument> courses = readSampleCourses();
+            int indexed = courseIndexer.replaceAll(courses);
+            log.info("Completed loading {} of {} courses", indexed, courses.size());
+        } catch (Exception e) {
+            log.error("Failed to load course data", e);
+            throw new RuntimeException("Data loading failed", e);
+        }
+    }
+
+    private List<CourseDocument> readSampleCourses() {
         try {
             log.info("Loading course data from: {}", sampleDataFile);
 
@@ -171,8 +292,6 @@ public class DataLoader implements CommandLineRunner {
                         log.debug("Parsed date for course {}: {} -> {} (ES format: {})",
                                 course.getId(), dateStr, normalizedDate, formattedForEs);
 
-                        addCompletionSuggestions(course);
-
                         if (!validateCourse(course)) {
                             log.warn("Skipping invalid course: {}", course.getId());
                             return;
@@ -191,37 +310,9 @@ public class DataLoader implements CommandLineRunner {
                     .collect(Collectors.toList());
 
             log.info("Processed {} valid courses", courses.size());
-
-            // Save in batches
-            final int batchSize = 50;
-            for (int i = 0; i < courses.size(); i += batchSize) {
-                List<CourseDocument> batch = courses.subList(
-                        i, Math.min(i + batchSize, courses.size())
-                );
-
-                try {
-                    courseRepository.saveAll(batch);
-                    log.info("Successfully processed batch {} to {} ({} courses)",
-                            i, Math.min(i + batchSize, courses.size()), batch.size());
-                } catch (BulkFailureException e) {
-                    log.error("Partial batch failure at {} to {}: {}",
-                            i, Math.min(i + batchSize, courses.size()), e.getMessage());
-
-                    // Retry individual documents
-                    batch.forEach(doc -> {
-                        try {
-                            courseRepository.save(doc);
-                            log.debug("Successfully saved document: {}", doc.getId());
-                        } catch (Exception ex) {
-                            log.error("Failed to save document {}: {}", doc.getId(), ex.getMessage());
-                        }
-                    });
-                }
-            }
-
-            log.info("Completed loading {} courses", courses.size());
+            return courses;
         } catch (Exception e) {
-            log.error("Failed to load course data", e);
+            log.error("Failed to read course data", e);
             throw new RuntimeException("Data loading failed", e);
         }
     }
@@ -297,33 +388,4 @@ public class DataLoader implements CommandLineRunner {
 
         return true;
     }
-
-    private void addCompletionSuggestions(CourseDocument course) {
-        try {
-            if (StringUtils.hasText(course.getTitle())) {
-                Completion completion = new Completion();
-                List<String> inputs = new ArrayList<>();
-
-                inputs.add(course.getTitle());
-                inputs.add(course.getTitle().toLowerCase());
-
-                if (course.getCategory() != null) {
-                    inputs.add(course.getCategory());
-                }
-
-                if (StringUtils.hasText(course.getDescription())) {
-                    Arrays.stream(course.getDescription().toLowerCase().split("\\s+"))
-                            .filter(word -> word.length() > 3)
-                            .filter(word -> !Set.of("comprehensive", "class", "designed", "for", "and", "the").contains(word))
-                            .limit(5)
-                            .forEach(inputs::add);
-                }
-
-                completion.setInput(inputs.toArray(new String[0]));
-                course.setSuggest(completion);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to set completion suggestions for course: {}", course.getTitle(), e);
-        }
-    }
-}
\ No newline at end of file
+}
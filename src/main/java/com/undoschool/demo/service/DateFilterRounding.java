@@ -0,0 +1,83 @@
+package com.undoschool.demo.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+
+/**
+ * Rounding of {@code startDate} filters that mean "from now on". A bound that lies between
+ * the start of the current period and now is rounded down to the start of the period, so
+ * every such request in the same period is byte-identical and can be answered from the
+ * shard request cache. It is sent as an absolute date: Elasticsearch never caches requests
+ * that use {@code now}. Any other date is a bound chosen by the user and is sent unchanged.
+ *
+ * <p>{@link LocalCourseIndex} and the facet cache apply the same rounding, so all of them
+ * agree on the courses a filter matches.
+ */
+@Component
+public class DateFilterRounding {
+
+    /** Periods a start date can be rounded to. */
+    public enum Unit {
+        NONE, SECONDS, MINUTES, HOURS, DAYS, WEEKS, MONTHS
+    }
+
+    private final Unit unit;
+    private final Clock clock;
+
+    @Autowired
+    public DateFilterRounding(@Value("${app.search.date-filter-rounding:HOURS}") String rounding) {
+        this(parse(rounding), Clock.systemUTC());
+    }
+
+    DateFilterRounding(Unit unit, Clock clock) {
+        this.unit = unit;
+        this.clock = clock;
+    }
+
+    static Unit parse(String rounding) {
+        try {
+            return Unit.valueOf(rounding.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("app.search.date-filter-rounding must be one of "
+                    + Arrays.toString(Unit.values()) + ", was '" + rounding + "'", e);
+        }
+    }
+
+    public Unit getUnit() {
+        return unit;
+    }
+
+    /**
+     * The start date the filter actually applies: the start of the current period for a date
+     * between it and now, otherwise {@code startDate} itself.
+     */
+    public LocalDateTime effectiveStart(LocalDateTime startDate) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        return isNowRelative(startDate, now) ? roundDown(now) : startDate;
+    }
+
+    private boolean isNowRelative(LocalDateTime startDate, LocalDateTime now) {
+        return unit != Unit.NONE && !startDate.isAfter(now) && !startDate.isBefore(roundDown(now));
+    }
+
+    /** Rounds down to the start of the period (weeks start on Monday). */
+    LocalDateTime roundDown(LocalDateTime dateTime) {
+        return switch (unit) {
+            case NONE -> dateTime;
+            case SECONDS -> dateTime.truncatedTo(ChronoUnit.SECONDS);
+            case MINUTES -> dateTime.truncatedTo(ChronoUnit.MINUTES);
+            case HOURS -> dateTime.truncatedTo(ChronoUnit.HOURS);
+            case DAYS -> dateTime.truncatedTo(ChronoUnit.DAYS);
+            case WEEKS -> dateTime.truncatedTo(ChronoUnit.DAYS).with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTHS -> dateTime.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.undoschool.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Monotonic counter of changes to the course index, bumped on every load, reindex or
+ * write. Anything derived from the index (HTTP validators, caches) can key on it and
+ * is implicitly invalidated when it moves.
+ *
+ * <p>{@link #current()} only has to be consistent within this process, for cache keys. The
+ * validators ({@link #etag()}, {@link #lastModified()}) are shared by every instance: they
+ * come from the cluster-wide generation that {@link IndexGenerationSync} keeps in
+ * Elasticsearch, so a validator handed out by one instance is honoured by the others. Until
+ * the cluster generation is known, or after a change that could not be recorded there, they
+ * are specific to this process and never match another one's.
+ */
+@Component
+@Slf4j
+public class IndexGeneration {
+
+    // Starting from the boot time keeps validators from a previous process from matching this one
+    private final long startedAt = System.currentTimeMillis();
+    private volatile State state = new State(0, null, 0, startedAt, true);
+
+    /**
+     * Invalidates everything derived from the index on this instance alone, for a change
+     * that is not (yet) reflected in the cluster generation.
+     */
+    public synchronized long bump() {
+        State previous = state;
+        State next = new State(previous.current() + 1, previous.epoch(), previous.generation(),
+                System.currentTimeMillis(), true);
+        state = next;
+        log.debug("Index generation is now {} (local)", next.current());
+        return next.current();
+    }
+
+    /**
+     * Adopts the cluster generation {@code generation} of {@code epoch}, last changed at
+     * {@code modifiedAt}, unless it is not newer than the one already adopted (a read that
+     * raced an increment). A newer generation moves {@link #current()}.
+     */
+    public synchronized long observe(String epoch, long generation, long modifiedAt) {
+        State previous = state;
+        if (epoch.equals(previous.epoch()) && generation <= previous.generation()) {
+            return previous.current();
+        }
+        State next = new State(previous.current() + 1, epoch, generation, modifiedAt, false);
+        state = next;
+        log.debug("Index generation is now {} (cluster generation {} of {})", next.current(), generation, epoch);
+        return next.current();
+    }
+
+    public long current() {
+        return state.current();
+    }
+
+    public long lastModified() {
+        return state.lastModified();
+    }
+
+    /** Weak entity tag for responses computed from the current generation of the index. */
+    public String etag() {
+        State current = state;
+        return current.local()
+                ? "W/\"" + Long.toString(startedAt, 36) + "-" + current.current() + "\""
+                : "W/\"" + current.epoch() + "-" + current.generation() + "\"";
+    }
+
+    /**
+     * {@code epoch} and {@code generation} are the newest cluster generation seen;
+     * {@code local} is set while this process has changes (or no cluster generation) past it.
+     */
+    private record State(long current, String epoch, long generation, long lastModified, boolean local) {
+    }
+}
@@ -0,0 +1,103 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import co.elastic.clients.elasticsearch.core.UpdateResponse;
+import co.elastic.clients.json.JsonData;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Keeps {@link IndexGeneration} in step across instances through one document in
+ * Elasticsearch. Every ingest through {@link CourseIndexer} increments it, and every
+ * instance polls it, so a change made on one instance invalidates the validators and
+ * caches of all of them within {@code app.index-generation.refresh-interval-ms}.
+ *
+ * <p>Writes that bypass {@link CourseIndexer} (other tools writing to the course indices)
+ * do not move the generation; they have to go through the app, or be followed by a
+ * reload, to be seen by conditional requests and caches.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IndexGenerationSync {
+
+    static final String DOCUMENT_ID = "catalog";
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final IndexGeneration indexGeneration;
+
+    @Value("${app.elasticsearch.index.generation:courses-generation}")
+    private String generationIndex;
+
+    // An ingest whose increment failed; retried before the cluster generation is adopted again
+    private volatile boolean pendingIncrement;
+
+    @EventListener
+    public void onCourseIngest(CourseIngestEvent event) {
+        // Invalidate here right away, in case the cluster generation can't be moved
+        pendingIncrement = true;
+        indexGeneration.bump();
+        increment();
+    }
+
+    @Scheduled(fixedDelayString = "${app.index-generation.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (pendingIncrement && !increment()) {
+            return;
+        }
+        try {
+            GetResponse<Stamp> response = elasticsearchClient.get(g -> g
+                    .index(generationIndex)
+                    .id(DOCUMENT_ID), Stamp.class);
+            if (response.found() && response.source() != null) {
+                observe(response.source());
+            }
+        } catch (Exception e) {
+            // Expected while the cluster is down or before the first ingest created the index
+            log.debug("Could not read the index generation: {}", e.getMessage());
+        }
+    }
+
+    /** Increments the cluster generation and adopts it; false if that failed. */
+    private synchronized boolean increment() {
+        long now = System.currentTimeMillis();
+        try {
+            UpdateResponse<Stamp> response = elasticsearchClient.update(u -> u
+                    .index(generationIndex)
+                    .id(DOCUMENT_ID)
+                    .script(s -> s.inline(i -> i
+                            .source("ctx._source.generation += 1; ctx._source.modifiedAt = params.now")
+                            .params("now", JsonData.of(now))))
+                    .upsert(new Stamp(UUID.randomUUID().toString(), 1, now))
+                    .source(src -> src.fetch(true))
+                    .retryOnConflict(10), Stamp.class);
+            pendingIncrement = false;
+            if (response.get() != null && response.get().source() != null) {
+                observe(response.get().source());
+            }
+            return true;
+        } catch (Exception e) {
+            log.warn("Could not move the index generation, other instances may serve stale validators: {}",
+                    e.getMessage());
+            return false;
+        }
+    }
+
+    private void observe(Stamp stamp) {
+        indexGeneration.observe(stamp.epoch(), stamp.generation(), stamp.modifiedAt());
+    }
+
+    /**
+     * The generation document. {@code epoch} is chosen when it is first created, so a
+     * recreated document never repeats the validators of an earlier one.
+     */
+    record Stamp(String epoch, long generation, long modifiedAt) {
+    }
+}
@@ -0,0 +1,340 @@
+package com.undoschool.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.CourseSearchResponse;
+import com.undoschool.demo.model.CourseDocument;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ngram.EdgeNGramTokenFilter;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.QueryBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory Lucene copy of the course catalog, fed from the same ingest events as
+ * Elasticsearch. It mirrors the query semantics of {@code CourseSearchService#buildQuery}
+ * and {@code buildSort} so that searches can be served locally when Elasticsearch is
+ * unavailable, or always when {@code app.search.read-preference=local}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LocalCourseIndex {
+
+    private static final String SOURCE_FIELD = "_source";
+    private static final String TITLE_NGRAM_FIELD = "title.edge_ngram";
+
+    private final ObjectMapper objectMapper;
+    private final DateFilterRounding dateFilterRounding;
+
+    @Value("${app.search.local-replica.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.search.read-preference:elasticsearch}")
+    private String readPreference;
+
+    private Analyzer analyzer;
+    private IndexWriter indexWriter;
+    private SearcherManager searcherManager;
+    private volatile boolean loaded;
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        analyzer = new PerFieldAnalyzerWrapper(new StandardAnalyzer(), Map.of(
+                "title", new EnglishAnalyzer(),
+                TITLE_NGRAM_FIELD, edgeNGramAnalyzer(),
+                "category", new KeywordAnalyzer()
+        ));
+        indexWriter = new IndexWriter(new ByteBuffersDirectory(), new IndexWriterConfig(analyzer));
+        searcherManager = new SearcherManager(indexWriter, null);
+        log.info("Local Lucene read replica enabled (read preference: {})", readPreference);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (searcherManager != null) {
+            searcherManager.close();
+        }
+        if (indexWriter != null) {
+            indexWriter.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Whether the replica holds data and can answer searches. */
+    public boolean isAvailable() {
+        return enabled && loaded;
+    }
+
+    /** Whether searches should go to the replica first instead of Elasticsearch. */
+    public boolean isPreferred() {
+        return isAvailable() && "local".equalsIgnoreCase(readPreference);
+    }
+
+    @EventListener
+    public void onCourseIngest(CourseIngestEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isFullReload()) {
+            replaceAll(event.getCourses());
+        } else {
+            upsert(event.getCourses());
+        }
+    }
+
+    public void replaceAll(List<CourseDocument> courses) {
+        try {
+            indexWriter.deleteAll();
+            upsert(courses);
+        } catch (IOException e) {
+            log.error("Failed to reload local replica", e);
+        }
+    }
+
+    public void upsert(List<CourseDocument> courses) {
+        try {
+            for (CourseDocument course : courses) {
+                indexWriter.updateDocument(new Term("id", course.getId()), toDocument(course));
+            }
+            searcherManager.maybeRefreshBlocking();
+            loaded = true;
+            log.info("Local replica updated with {} courses", courses.size());
+        } catch (IOException e) {
+            log.error("Failed to update local replica", e);
+        }
+    }
+
+    public CourseSearchResponse search(CourseSearchRequest request) {
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            Query query = buildQuery(request);
+            int from = request.getPage() * request.getSize();
+
+            TopFieldDocs topDocs = searcher.search(query, Math.max(from + request.getSize(), 1), buildSort(request.getSort()));
+            long total = topDocs.totalHits.relation == TotalHits.Relation.EQUAL_TO
+                    ? topDocs.totalHits.value
+                    : searcher.count(query);
+
+            StoredFields storedFields = searcher.storedFields();
+            List<CourseDocument> courses = new ArrayList<>();
+            for (int i = from; i < topDocs.scoreDocs.length && courses.size() < request.getSize(); i++) {
+                BytesRef source = storedFields.document(topDocs.scoreDocs[i].doc).getBinaryValue(SOURCE_FIELD);
+                courses.add(objectMapper.readValue(source.bytes, source.offset, source.length, CourseDocument.class));
+            }
+
+            int totalPages = (int) Math.ceil((double) total / request.getSize());
+            return new CourseSearchResponse(total, courses, request.getPage(), request.getSize(), totalPages);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to search local replica", e);
+        } finally {
+            if (searcher != null) {
+                try {
+                    searcherManager.release(searcher);
+                } catch (IOException e) {
+                    log.warn("Failed to release local replica searcher", e);
+                }
+            }
+        }
+    }
+
+    private Document toDocument(CourseDocument course) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField("id", course.getId(), Field.Store.NO));
+        doc.add(new StoredField(SOURCE_FIELD, objectMapper.writeValueAsBytes(course)));
+
+        if (course.getTitle() != null) {
+            doc.add(new TextField("title", course.getTitle(), Field.Store.NO));
+            doc.add(new TextField(TITLE_NGRAM_FIELD, course.getTitle(), Field.Store.NO));
+        }
+        if (course.getDescription() != null) {
+            doc.add(new TextField("description", course.getDescription(), Field.Store.NO));
+        }
+        if (course.getCategory() != null) {
+            doc.add(new StringField("category", course.getCategory(), Field.Store.NO));
+        }
+        if (course.getType() != null) {
+            doc.add(new StringField("type", course.getType().name(), Field.Store.NO));
+        }
+        if (course.getMinAge() != null || course.getMaxAge() != null) {
+            doc.add(new IntRange("ageRange",
+                    new int[]{course.getMinAge() != null ? course.getMinAge() : Integer.MIN_VALUE},
+                    new int[]{course.getMaxAge() != null ? course.getMaxAge() : Integer.MAX_VALUE}));
+        }
+        if (course.getPrice() != null) {
+            doc.add(new DoublePoint("price", course.getPrice()));
+            doc.add(new DoubleDocValuesField("price", course.getPrice()));
+        }
+        if (course.getNextSessionDate() != null) {
+            long epochSeconds = toEpochSeconds(course.getNextSessionDate());
+            doc.add(new LongPoint("nextSessionDate", epochSeconds));
+            doc.add(new NumericDocValuesField("nextSessionDate", epochSeconds));
+        }
+        return doc;
+    }
+
+    private Query buildQuery(CourseSearchRequest request) throws IOException {
+        BooleanQuery.Builder boolQuery = new BooleanQuery.Builder();
+
+        if (StringUtils.hasText(request.getQ())) {
+            String query = request.getQ().trim().toLowerCase();
+            QueryBuilder queryBuilder = new QueryBuilder(analyzer);
+
+            // Exact match with high boost
+            addShould(boolQuery, queryBuilder.createBooleanQuery("title", query), 3.0f);
+
+            // Edge ngram for partial matches
+            addShould(boolQuery, queryBuilder.createBooleanQuery(TITLE_NGRAM_FIELD, query), 2.0f);
+
+            // Best-fields fuzzy multi-match over title^3, description^2 and category
+            List<Query> perField = new ArrayList<>();
+            addIfPresent(perField, fuzzyMatch("title", query), 3.0f);
+            addIfPresent(perField, fuzzyMatch("description", query), 2.0f);
+            addIfPresent(perField, fuzzyMatch("category", query), 1.0f);
+            if (!perField.isEmpty()) {
+                boolQuery.add(new DisjunctionMaxQuery(perField, 0.0f), BooleanClause.Occur.SHOULD);
+            }
+
+            // Wildcard as fallback
+            addShould(boolQuery, new WildcardQuery(new Term("title", "*" + query + "*")), 0.5f);
+
+            boolQuery.setMinimumNumberShouldMatch(1);
+        } else {
+            boolQuery.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+
+        if (request.getMinAge() != null || request.getMaxAge() != null) {
+            addFilter(boolQuery, IntRange.newIntersectsQuery("ageRange",
+                    new int[]{request.getMinAge() != null ? request.getMinAge() : Integer.MIN_VALUE},
+                    new int[]{request.getMaxAge() != null ? request.getMaxAge() : Integer.MAX_VALUE}));
+        }
+        if (request.getCategory() != null) {
+            addFilter(boolQuery, new TermQuery(new Term("category", request.getCategory())));
+        }
+        if (request.getType() != null) {
+            addFilter(boolQuery, new TermQuery(new Term("type", request.getType().name())));
+        }
+        if (request.getMinPrice() != null) {
+            addFilter(boolQuery, DoublePoint.newRangeQuery("price", request.getMinPrice(), Double.POSITIVE_INFINITY));
+        }
+        if (request.getMaxPrice() != null) {
+            addFilter(boolQuery, DoublePoint.newRangeQuery("price", Double.NEGATIVE_INFINITY, request.getMaxPrice()));
+        }
+        if (request.getStartDate() != null) {
+            addFilter(boolQuery, LongPoint.newRangeQuery("nextSessionDate",
+                    toEpochSeconds(dateFilterRounding.effectiveStart(request.getStartDate())), Long.MAX_VALUE));
+        }
+
+        return boolQuery.build();
+    }
+
+    private Query fuzzyMatch(String field, String query) throws IOException {
+        BooleanQuery.Builder terms = new BooleanQuery.Builder();
+        int count = 0;
+        try (TokenStream stream = analyzer.tokenStream(field, query)) {
+            CharTermAttribute termAttribute = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                String term = termAttribute.toString();
+                terms.add(new FuzzyQuery(new Term(field, term), autoFuzziness(term)), BooleanClause.Occur.SHOULD);
+                count++;
+            }
+            stream.end();
+        }
+        return count == 0 ? null : terms.build();
+    }
+
+    private Sort buildSort(String sort) {
+        SortField sortField = switch (sort == null ? "upcoming" : sort) {
+            case "priceAsc" -> withMissingValue(new SortField("price", SortField.Type.DOUBLE), Double.POSITIVE_INFINITY);
+            case "priceDesc" -> withMissingValue(new SortField("price", SortField.Type.DOUBLE, true), Double.NEGATIVE_INFINITY);
+            default -> withMissingValue(new SortField("nextSessionDate", SortField.Type.LONG), Long.MAX_VALUE);
+        };
+        return new Sort(sortField, SortField.FIELD_DOC);
+    }
+
+    private static SortField withMissingValue(SortField sortField, Object missingValue) {
+        // Elasticsearch sorts documents without a value last, whatever the order
+        sortField.setMissingValue(missingValue);
+        return sortField;
+    }
+
+    /** Same edit distances as Elasticsearch's {@code fuzziness: AUTO}. */
+    private static int autoFuzziness(String term) {
+        if (term.length() < 3) {
+            return 0;
+        }
+        return term.length() <= 5 ? 1 : 2;
+    }
+
+    private static void addShould(BooleanQuery.Builder boolQuery, Query query, float boost) {
+        if (query != null) {
+            boolQuery.add(new BoostQuery(query, boost), BooleanClause.Occur.SHOULD);
+        }
+    }
+
+    private static void addIfPresent(List<Query> queries, Query query, float boost) {
+        if (query != null) {
+            queries.add(new BoostQuery(query, boost));
+        }
+    }
+
+    private static void addFilter(BooleanQuery.Builder boolQuery, Query query) {
+        boolQuery.add(query, BooleanClause.Occur.FILTER);
+    }
+
+    private static long toEpochSeconds(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static Analyzer edgeNGramAnalyzer() {
+        // Mirrors edge_ngram_analyzer in courses-settings.json
+        return new Analyzer() {
+            @Override
+            protected TokenStreamComponents createComponents(String fieldName) {
+                Tokenizer source = new StandardTokenizer();
+                TokenStream result = new LowerCaseFilter(source);
+                result = new EdgeNGramTokenFilter(result, 2, 15, false);
+                return new TokenStreamComponents(source, result);
+            }
+        };
+    }
+}
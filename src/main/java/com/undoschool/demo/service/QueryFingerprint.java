@@ -0,0 +1,89 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.dto.CourseSearchRequest;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Normalizes a {@link CourseSearchRequest} into the "shape" of the query it produces:
+ * which filters were set, the effective sort, whether a text query was present and
+ * how deep into the result set the page is. Requests that only differ by their values
+ * (e.g. two different categories) share a fingerprint.
+ */
+public final class QueryFingerprint {
+
+    private QueryFingerprint() {
+    }
+
+    public static String of(CourseSearchRequest request) {
+        List<String> filters = new ArrayList<>();
+        if (request.getMinAge() != null || request.getMaxAge() != null) {
+            filters.add("age");
+        }
+        if (request.getCategory() != null) {
+            filters.add("category");
+        }
+        if (request.getType() != null) {
+            filters.add("type");
+        }
+        if (request.getMinPrice() != null || request.getMaxPrice() != null) {
+            filters.add("price");
+        }
+        if (request.getStartDate() != null) {
+            filters.add("date");
+        }
+
+        return "q=" + (StringUtils.hasText(request.getQ()) ? "text" : "none")
+                + "|filters=" + (filters.isEmpty() ? "none" : String.join(",", filters))
+                + "|sort=" + normalizeSort(request.getSort())
+                + "|depth=" + pageDepth(request.getPage())
+                + (request.isFacets() ? "|facets" : "")
+                + (request.isHighlight() ? "|highlight" : "")
+                + (request.isProfile() ? "|profile" : "");
+    }
+
+    /**
+     * Returns a copy of the request with the variations that cannot change the result removed
+     * (surrounding whitespace and case of {@code q}, blank {@code q}, unknown sorts), suitable as a map key.
+     */
+    public static CourseSearchRequest normalize(CourseSearchRequest request) {
+        CourseSearchRequest normalized = new CourseSearchRequest();
+        normalized.setQ(StringUtils.hasText(request.getQ()) ? request.getQ().trim().toLowerCase() : null);
+        normalized.setMinAge(request.getMinAge());
+        normalized.setMaxAge(request.getMaxAge());
+        normalized.setCategory(request.getCategory());
+        normalized.setType(request.getType());
+        normalized.setMinPrice(request.getMinPrice());
+        normalized.setMaxPrice(request.getMaxPrice());
+        normalized.setStartDate(request.getStartDate());
+        normalized.setSort(normalizeSort(request.getSort()));
+        normalized.setPage(request.getPage());
+        normalized.setSize(request.getSize());
+        normalized.setFacets(request.isFacets());
+        normalized.setHighlight(request.isHighlight());
+        normalized.setProfile(request.isProfile());
+        return normalized;
+    }
+
+    static String normalizeSort(String sort) {
+        if ("priceAsc".equals(sort) || "priceDesc".equals(sort)) {
+            return sort;
+        }
+        return "upcoming";
+    }
+
+    static String pageDepth(int page) {
+        if (page <= 0) {
+            return "0";
+        }
+        if (page < 5) {
+            return "1-4";
+        }
+        if (page < 20) {
+            return "5-19";
+        }
+        return "20+";
+    }
+}
@@ -0,0 +1,79 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How widely a text query is matched, from cheapest to most expensive. Each tier includes
+ * the clauses of the tiers before it, so widening only adds hits and keeps the scoring of
+ * the cheaper clauses.
+ */
+public enum QueryTier {
+
+    /** Analyzed title match and title prefixes (edge n-grams). */
+    EXACT,
+    /** Plus fuzzy matching on title, description and category. */
+    FUZZY,
+    /** Plus an infix wildcard on the title. */
+    INFIX;
+
+    /** The {@code should} clauses of this tier for a trimmed, lower-cased query. */
+    public List<Query> textClauses(String query) {
+        List<Query> clauses = new ArrayList<>();
+
+        // Exact match with high boost
+        clauses.add(Query.of(q -> q
+                .match(m -> m
+                        .field("title")
+                        .query(query)
+                        .boost(3.0f)
+                )
+        ));
+
+        // Edge ngram for partial matches
+        clauses.add(Query.of(q -> q
+                .match(m -> m
+                        .field("title.edge_ngram")
+                        .query(query)
+                        .boost(2.0f)
+                )
+        ));
+
+        if (this == EXACT) {
+            return clauses;
+        }
+
+        // Standard multi-match with fuzziness
+        clauses.add(Query.of(q -> q
+                .multiMatch(m -> m
+                        .query(query)
+                        .fields("title^3", "description^2", "category")
+                        .type(TextQueryType.BestFields)
+                        .fuzziness("AUTO")
+                        .operator(Operator.Or)
+                )
+        ));
+
+        if (this == FUZZY) {
+            return clauses;
+        }
+
+        // Wildcard as fallback
+        clauses.add(Query.of(q -> q
+                .wildcard(w -> w
+                        .field("title")
+                        .value("*" + query + "*")
+                        .boost(0.5f)
+                )
+        ));
+        return clauses;
+    }
+
+    public String label() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,386 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.Refresh;
+import co.elastic.clients.elasticsearch._types.Result;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.indices.IndexSettingsAnalysis;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.SavedSearch;
+import com.undoschool.demo.dto.SearchAlert;
+import com.undoschool.demo.model.CourseDocument;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonGenerator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Saved searches and new-course alerts. Each saved search is stored in a percolator index
+ * with the query {@link CourseSearchService#buildQuery} builds for it, so instead of
+ * re-running every saved search against the catalog, the courses each ingest adds or
+ * changes are percolated once against all saved searches. Matches are recorded as {@link SearchAlert}s,
+ * keyed by search and course, so a course alerts each saved search at most once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SavedSearchService {
+
+    private static final String SLOT_FIELD = "_percolator_document_slot";
+    private static final DateTimeFormatter ES_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final CourseSearchService courseSearchService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.saved-searches.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.elasticsearch.index.saved-searches:courses-saved-searches}")
+    private String searchesIndex;
+
+    @Value("${app.elasticsearch.index.search-alerts:courses-search-alerts}")
+    private String alertsIndex;
+
+    /** Courses percolated per request. */
+    @Value("${app.saved-searches.percolate-batch-size:100}")
+    private int percolateBatchSize;
+
+    /** Matching saved searches read per page of a percolation. */
+    @Value("${app.saved-searches.match-page-size:1000}")
+    private int matchPageSize;
+
+    private volatile boolean indicesReady;
+
+    // Fingerprint of each course as last ingested, to tell which courses a full reload changed
+    private final Map<String, Integer> catalog = new HashMap<>();
+    private boolean catalogKnown;
+
+    public SavedSearch save(String owner, CourseSearchRequest request) {
+        try {
+            ensureIndices();
+            CourseSearchRequest normalized = QueryFingerprint.normalize(request);
+            SavedSearch savedSearch = new SavedSearch();
+            savedSearch.setId(UUID.randomUUID().toString());
+            savedSearch.setOwner(owner);
+            savedSearch.setRequest(normalized);
+            savedSearch.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+
+            // The widest tier, so that alerts cover every course the search could return
+            Query query = courseSearchService.buildQuery(normalized, QueryTier.INFIX);
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put("searchId", savedSearch.getId());
+            document.put("owner", owner);
+            document.put("createdAt", savedSearch.getCreatedAt().format(ES_DATE_FORMATTER));
+            document.put("request", objectMapper.valueToTree(normalized));
+            document.put("query", toJson(query));
+
+            elasticsearchClient.index(i -> i
+                    .index(searchesIndex)
+                    .id(savedSearch.getId())
+                    .document(document)
+                    .refresh(Refresh.WaitFor));
+            log.info("Saved search {} for {}", savedSearch.getId(), owner);
+            return savedSearch;
+        } catch (Exception e) {
+            log.error("Error saving search for {}: {}", owner, request, e);
+            throw new RuntimeException("Failed to save search", e);
+        }
+    }
+
+    public List<SavedSearch> list(String owner) {
+        try {
+            ensureIndices();
+            SearchResponse<JsonNode> response = elasticsearchClient.search(s -> s
+                            .index(searchesIndex)
+                            .query(q -> q.term(t -> t.field("owner").value(owner)))
+                            .source(src -> src.filter(f -> f.excludes("query")))
+                            .sort(so -> so.field(f -> f.field("createdAt").order(SortOrder.Asc)))
+                            .size(1000),
+                    JsonNode.class);
+
+            List<SavedSearch> searches = new ArrayList<>();
+            for (Hit<JsonNode> hit : response.hits().hits()) {
+                searches.add(toSavedSearch(hit.source()));
+            }
+            return searches;
+        } catch (Exception e) {
+            log.error("Error listing saved searches for {}", owner, e);
+            throw new RuntimeException("Failed to list saved searches", e);
+        }
+    }
+
+    /** Removes a saved search; its past alerts stay. Returns false if there was no such search. */
+    public boolean delete(String id) {
+        try {
+            ensureIndices();
+            return elasticsearchClient.delete(d -> d.index(searchesIndex).id(id).refresh(Refresh.WaitFor))
+                    .result() == Result.Deleted;
+        } catch (Exception e) {
+            log.error("Error deleting saved search {}", id, e);
+            throw new RuntimeException("Failed to delete saved search", e);
+        }
+    }
+
+    /** The most recent alerts of a saved search, newest first. */
+    public List<SearchAlert> alerts(String searchId, int limit) {
+        try {
+            ensureIndices();
+            SearchResponse<SearchAlert> response = elasticsearchClient.search(s -> s
+                            .index(alertsIndex)
+                            .query(q -> q.term(t -> t.field("searchId").value(searchId)))
+                            .sort(so -> so.field(f -> f.field("matchedAt").order(SortOrder.Desc)))
+                            .size(limit),
+                    SearchAlert.class);
+            return response.hits().hits().stream()
+                    .map(Hit::source)
+                    .filter(Objects::nonNull)
+                    .toList();
+        } catch (Exception e) {
+            log.error("Error reading alerts of saved search {}", searchId, e);
+            throw new RuntimeException("Failed to read alerts", e);
+        }
+    }
+
+    /**
+     * Percolates the courses an ingest added or changed. Every ingest path replaces the whole
+     * catalog, so a full reload is compared with the previous one and only its new or changed
+     * courses are percolated.
+     */
+    @EventListener
+    public void onCourseIngest(CourseIngestEvent event) {
+        if (!enabled) {
+            return;
+        }
+        List<CourseDocument> changed = changedCourses(event);
+        if (changed.isEmpty()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            int created = percolate(changed);
+            log.info("Percolated {} new or changed courses against saved searches in {} ms: {} new alerts",
+                    changed.size(), (System.nanoTime() - start) / 1_000_000, created);
+        } catch (Exception e) {
+            log.error("Failed to percolate {} ingested courses", changed.size(), e);
+        }
+    }
+
+    /**
+     * The courses of an ingest that differ from what the previous ingests left, as indexed.
+     * The first full reload since startup has nothing to compare with; it is the catalog saved
+     * searches were made against, so it is only remembered.
+     */
+    synchronized List<CourseDocument> changedCourses(CourseIngestEvent event) {
+        List<CourseDocument> changed = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (CourseDocument course : event.getCourses()) {
+            ids.add(course.getId());
+            int fingerprint = CourseIndexer.indexSource(objectMapper, course).hashCode();
+            Integer previous = catalog.put(course.getId(), fingerprint);
+            if (previous == null || previous != fingerprint) {
+                changed.add(course);
+            }
+        }
+        if (!event.isFullReload()) {
+            return changed;
+        }
+        catalog.keySet().retainAll(ids);
+        if (!catalogKnown) {
+            catalogKnown = true;
+            return List.of();
+        }
+        return changed;
+    }
+
+    /**
+     * Percolates {@code courses} in batches and records an alert for every (saved search,
+     * course) match that has not been recorded before. Returns the number of new alerts.
+     */
+    public int percolate(List<CourseDocument> courses) throws IOException {
+        ensureIndices();
+        if (elasticsearchClient.count(c -> c.index(searchesIndex)).count() == 0) {
+            // Nothing to match, e.g. on the initial load; skip the per-batch round-trips
+            return 0;
+        }
+        int created = 0;
+        for (int i = 0; i < courses.size(); i += percolateBatchSize) {
+            List<CourseDocument> batch = courses.subList(i, Math.min(i + percolateBatchSize, courses.size()));
+            // As indexed, since saved-search queries may filter on the derived ageRange
+            List<JsonData> documents = batch.stream()
+                    .map(course -> JsonData.of(CourseIndexer.indexSource(objectMapper, course)))
+                    .toList();
+
+            List<FieldValue> searchAfter = null;
+            while (true) {
+                List<FieldValue> after = searchAfter;
+                SearchResponse<JsonNode> response = elasticsearchClient.search(s -> {
+                    s.index(searchesIndex)
+                            .query(q -> q.percolate(p -> p.field("query").documents(documents)))
+                            .source(src -> src.filter(f -> f.includes("searchId", "owner")))
+                            .sort(so -> so.field(f -> f.field("searchId")))
+                            .size(matchPageSize);
+                    if (after != null) {
+                        s.searchAfter(after);
+                    }
+                    return s;
+                }, JsonNode.class);
+
+                List<Hit<JsonNode>> hits = response.hits().hits();
+                if (hits.isEmpty()) {
+                    break;
+                }
+                created += recordAlerts(hits, batch);
+                if (hits.size() < matchPageSize) {
+                    break;
+                }
+                searchAfter = hits.get(hits.size() - 1).sort();
+            }
+        }
+        return created;
+    }
+
+    /** Writes alerts with create operations, so pairs that were already alerted are skipped. */
+    private int recordAlerts(List<Hit<JsonNode>> hits, List<CourseDocument> batch) throws IOException {
+        List<SearchAlert> alerts = alertsFor(hits, batch, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        if (alerts.isEmpty()) {
+            return 0;
+        }
+        BulkRequest.Builder bulk = new BulkRequest.Builder();
+        for (SearchAlert alert : alerts) {
+            bulk.operations(op -> op
+                    .create(c -> c
+                            .index(alertsIndex)
+                            .id(alertId(alert))
+                            .document(alert)));
+        }
+        return countCreated(elasticsearchClient.bulk(bulk.build()));
+    }
+
+    /** One alert per saved search hit and course slot it matched. */
+    static List<SearchAlert> alertsFor(List<Hit<JsonNode>> hits, List<CourseDocument> batch, LocalDateTime now) {
+        List<SearchAlert> alerts = new ArrayList<>();
+        for (Hit<JsonNode> hit : hits) {
+            String searchId = hit.source().path("searchId").asText();
+            String owner = hit.source().path("owner").asText();
+            for (int slot : slots(hit, batch.size())) {
+                CourseDocument course = batch.get(slot);
+                alerts.add(new SearchAlert(searchId, owner, course.getId(), course.getTitle(), now));
+            }
+        }
+        return alerts;
+    }
+
+    /** The alert's document id; one per (saved search, course) pair, which is what makes alerts unique. */
+    static String alertId(SearchAlert alert) {
+        return alert.getSearchId() + ":" + alert.getCourseId();
+    }
+
+    /** Alerts the bulk request created; a 409 is a pair that was alerted before, anything else is logged. */
+    static int countCreated(BulkResponse response) {
+        int created = 0;
+        for (BulkResponseItem item : response.items()) {
+            if (item.error() == null) {
+                created++;
+            } else if (item.status() != 409) {
+                log.error("Failed to record alert {}: {}", item.id(), item.error().reason());
+            }
+        }
+        return created;
+    }
+
+    /** Which of the percolated documents a saved search matched. */
+    static List<Integer> slots(Hit<JsonNode> hit, int batchSize) {
+        JsonData slotField = hit.fields().get(SLOT_FIELD);
+        if (slotField == null) {
+            return batchSize == 1 ? List.of(0) : List.of();
+        }
+        JsonValue value = slotField.toJson();
+        if (value.getValueType() != JsonValue.ValueType.ARRAY) {
+            return List.of(Integer.parseInt(value.toString()));
+        }
+        return value.asJsonArray().getValuesAs(JsonNumber.class).stream()
+                .map(JsonNumber::intValue)
+                .toList();
+    }
+
+    private SavedSearch toSavedSearch(JsonNode source) throws IOException {
+        SavedSearch savedSearch = new SavedSearch();
+        savedSearch.setId(source.path("searchId").asText());
+        savedSearch.setOwner(source.path("owner").asText());
+        savedSearch.setRequest(objectMapper.treeToValue(source.path("request"), CourseSearchRequest.class));
+        if (source.hasNonNull("createdAt")) {
+            savedSearch.setCreatedAt(LocalDateTime.parse(source.get("createdAt").asText(), ES_DATE_FORMATTER));
+        }
+        return savedSearch;
+    }
+
+    private JsonNode toJson(Query query) throws IOException {
+        JsonpMapper mapper = elasticsearchClient._jsonpMapper();
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (JsonGenerator generator = mapper.jsonProvider().createGenerator(json)) {
+            query.serialize(generator, mapper);
+        }
+        return objectMapper.readTree(json.toByteArray());
+    }
+
+    /**
+     * Creates the two indices on first use. The saved-search index carries the course mappings
+     * and analyzers, since percolator queries are parsed against them.
+     */
+    private synchronized void ensureIndices() throws IOException {
+        if (indicesReady) {
+            return;
+        }
+        if (!elasticsearchClient.indices().exists(e -> e.index(searchesIndex)).value()) {
+            TypeMapping courseMappings = CourseIndexLayout.courseMappings();
+            IndexSettingsAnalysis analysis = CourseIndexLayout.courseSettings().analysis();
+            elasticsearchClient.indices().create(c -> c
+                    .index(searchesIndex)
+                    .settings(s -> s.analysis(analysis))
+                    .mappings(m -> m
+                            .properties(courseMappings.properties())
+                            .properties("searchId", p -> p.keyword(k -> k))
+                            .properties("owner", p -> p.keyword(k -> k))
+                            .properties("createdAt", p -> p.date(d -> d.format("yyyy-MM-dd'T'HH:mm:ss")))
+                            .properties("request", p -> p.object(o -> o.enabled(false)))
+                            .properties("query", p -> p.percolator(pc -> pc))));
+            log.info("Created saved-search index '{}'", searchesIndex);
+        }
+        if (!elasticsearchClient.indices().exists(e -> e.index(alertsIndex)).value()) {
+            elasticsearchClient.indices().create(c -> c
+                    .index(alertsIndex)
+                    .mappings(m -> m
+                            .properties("searchId", p -> p.keyword(k -> k))
+                            .properties("owner", p -> p.keyword(k -> k))
+                            .properties("courseId", p -> p.keyword(k -> k))
+                            .properties("title", p -> p.text(t -> t))
+                            .properties("matchedAt", p -> p.date(d -> d.format("yyyy-MM-dd'T'HH:mm:ss")))));
+            log.info("Created search-alert index '{}'", alertsIndex);
+        }
+        indicesReady = true;
+    }
+}
@@ -0,0 +1,121 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.Time;
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.rest_client.RestClientOptions;
+import org.apache.http.client.config.RequestConfig;
+import org.elasticsearch.client.RequestOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Time budgets per endpoint. A {@link Deadline} is started when a request comes in and is
+ * enforced twice: Elasticsearch gets the endpoint's budget as its search {@code timeout}
+ * (shards stop collecting and return what they have), and the client stops waiting for the
+ * response a grace period after the time actually left, instead of after the 60 s socket
+ * timeout. The search timeout is part of the shard request cache key, so it is the fixed
+ * budget rather than the time left, which would differ on every request.
+ */
+@Component
+public class SearchBudget {
+
+    /** Budget of {@code /api/search}; 0 disables it. */
+    @Value("${app.search.budget.search-ms:2000}")
+    private long searchMs;
+
+    /** Budget of {@code /api/search/suggest}; 0 disables it. */
+    @Value("${app.search.budget.suggest-ms:300}")
+    private long suggestMs;
+
+    /** Time the client waits past the deadline for Elasticsearch's own (timed-out) response. */
+    @Value("${app.search.budget.client-grace-ms:250}")
+    private long clientGraceMs;
+
+    /**
+     * Whether shards that ran out of time (or failed) may be left out of a response. When
+     * false, Elasticsearch fails the search instead.
+     */
+    @Value("${app.search.budget.allow-partial-results:true}")
+    private boolean allowPartialResults;
+
+    public Deadline forSearch() {
+        return start(searchMs);
+    }
+
+    public Deadline forSuggest() {
+        return start(suggestMs);
+    }
+
+    public boolean allowPartialResults() {
+        return allowPartialResults;
+    }
+
+    private Deadline start(long budgetMs) {
+        return budgetMs > 0
+                ? new Deadline(System.nanoTime() + budgetMs * 1_000_000, budgetMs, clientGraceMs)
+                : Deadline.NONE;
+    }
+
+    /** The point in time a request has to be answered by. */
+    public static final class Deadline {
+
+        /** No budget: no search timeout, the client's default socket timeout. */
+        public static final Deadline NONE = new Deadline(Long.MAX_VALUE, 0, 0);
+
+        private final long expiresAt;
+        private final long budgetMs;
+        private final long clientGraceMs;
+
+        Deadline(long expiresAt, long budgetMs, long clientGraceMs) {
+            this.expiresAt = expiresAt;
+            this.budgetMs = budgetMs;
+            this.clientGraceMs = clientGraceMs;
+        }
+
+        public boolean isBounded() {
+            return this != NONE;
+        }
+
+        public boolean isExpired() {
+            return isBounded() && System.nanoTime() >= expiresAt;
+        }
+
+        /** Milliseconds left, at least 1 so that an almost spent budget still gets an answer. */
+        public long remainingMs() {
+            return Math.max(1, (expiresAt - System.nanoTime()) / 1_000_000);
+        }
+
+        /**
+         * The endpoint's budget as an Elasticsearch search {@code timeout}, or null without a
+         * budget. Constant per endpoint so that repeated searches share request cache entries;
+         * the time actually left is enforced by {@link #requestConfig()}.
+         */
+        public Time timeout() {
+            return isBounded() ? Time.of(t -> t.time(budgetMs + "ms")) : null;
+        }
+
+        /** Per-request timeouts that give up waiting a grace period after the deadline. */
+        public RequestConfig requestConfig() {
+            int timeoutMs = (int) Math.min(Integer.MAX_VALUE, remainingMs() + clientGraceMs);
+            return RequestConfig.custom()
+                    .setConnectTimeout(timeoutMs)
+                    .setSocketTimeout(timeoutMs)
+                    .build();
+        }
+
+        /** {@code client}, or a view of it whose requests time out with this deadline. */
+        public ElasticsearchClient apply(ElasticsearchClient client) {
+            if (!isBounded()) {
+                return client;
+            }
+            TransportOptions base = client._transportOptions() != null
+                    ? client._transportOptions()
+                    : client._transport().options();
+            RequestOptions options = ((RestClientOptions) base).restClientRequestOptions().toBuilder()
+                    .setRequestConfig(requestConfig())
+                    .build();
+            return client.withTransportOptions(new RestClientOptions(options));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.CourseSearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of searches: while a search for a given normalized request is
+ * in flight, concurrent callers with an equal request wait for it and receive its response
+ * instead of sending their own query to Elasticsearch. Every caller gets its own copy.
+ */
+@Component
+@Slf4j
+public class SearchCoalescer {
+
+    private final ConcurrentMap<CourseSearchRequest, CompletableFuture<CourseSearchResponse>> inFlight =
+            new ConcurrentHashMap<>();
+    private final Counter coalescedSearches;
+
+    public SearchCoalescer(MeterRegistry meterRegistry) {
+        this.coalescedSearches = Counter.builder("course.search.coalesced")
+                .description("Searches answered by joining an identical in-flight search")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param key    normalized request, see {@link QueryFingerprint#normalize(CourseSearchRequest)};
+     *               must not be modified afterwards
+     * @param search performs the search when no identical one is in flight
+     */
+    public CourseSearchResponse execute(CourseSearchRequest key, Supplier<CourseSearchResponse> search) {
+        CompletableFuture<CourseSearchResponse> leader = new CompletableFuture<>();
+        CompletableFuture<CourseSearchResponse> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            coalescedSearches.increment();
+            log.debug("Joining in-flight search for {}", key);
+            return join(existing).copy();
+        }
+
+        try {
+            CourseSearchResponse response = search.get();
+            leader.complete(response);
+            return response.copy();
+        } catch (Throwable e) {
+            // Errors too, or the callers that joined would wait forever
+            leader.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, leader);
+        }
+    }
+
+    public long getCoalescedCount() {
+        return (long) coalescedSearches.count();
+    }
+
+    private static CourseSearchResponse join(CompletableFuture<CourseSearchResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
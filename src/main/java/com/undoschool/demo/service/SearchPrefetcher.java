@@ -0,0 +1,182 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.CourseSearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Speculative next-page fetching for users paging forward through results. After page N
+ * of a search is served, page N+1 is searched in the background and kept for a short
+ * while, keyed by the normalized request and the {@link IndexGeneration}; if the user
+ * asks for it, it is served without a round-trip (and page N+2 is fetched in turn).
+ * <p>
+ * Prefetches are best effort: they run on a small pool with a bounded queue, are dropped
+ * when the queue is full or the {@link AdaptiveConcurrencyLimiter} has no room to spare,
+ * and never run twice for the same page at once.
+ */
+@Component
+@Slf4j
+public class SearchPrefetcher {
+
+    /** Elasticsearch's default {@code index.max_result_window}. */
+    private static final int MAX_RESULT_WINDOW = 10_000;
+
+    private final IndexGeneration indexGeneration;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final int cacheSize;
+    private final ThreadPoolExecutor executor;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final Map<Key, Prefetched> cache;
+    private final Set<Key> inFlight = ConcurrentHashMap.newKeySet();
+
+    public SearchPrefetcher(IndexGeneration indexGeneration, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.search.prefetch.enabled:false}") boolean enabled,
+                            @Value("${app.search.prefetch.ttl-ms:30000}") long ttlMillis,
+                            @Value("${app.search.prefetch.cache-size:1000}") int cacheSize,
+                            @Value("${app.search.prefetch.threads:2}") int threads,
+                            @Value("${app.search.prefetch.queue-size:100}") int queueSize) {
+        this.indexGeneration = indexGeneration;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.enabled = enabled;
+        this.ttlMillis = ttlMillis;
+        this.cacheSize = cacheSize;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Prefetched> eldest) {
+                return size() > SearchPrefetcher.this.cacheSize;
+            }
+        });
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "search-prefetch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        this.hits = Counter.builder("course.search.prefetch")
+                .description("Requests for a later page answered from (hit) or past (miss) the prefetched pages")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("course.search.prefetch")
+                .description("Requests for a later page answered from (hit) or past (miss) the prefetched pages")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("course.search.prefetch.hit-ratio", this, SearchPrefetcher::getHitRatio)
+                .description("Share of later-page requests answered from prefetched pages")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * A copy of the prefetched response for {@code key} (a normalized request), or null. Only requests
+     * past the first page count towards the hit ratio, since nothing prefetches page 0.
+     */
+    public CourseSearchResponse get(CourseSearchRequest key) {
+        if (!enabled || key.getPage() == 0 || key.isProfile()) {
+            return null;
+        }
+        Prefetched prefetched = cache.get(new Key(key, indexGeneration.current()));
+        if (prefetched != null && prefetched.expiresAt() > System.currentTimeMillis()) {
+            hits.increment();
+            return prefetched.response().copy();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Fetches the page after {@code key} in the background with {@code search}, if
+     * {@code served} shows that there is one.
+     */
+    public void prefetchNext(CourseSearchRequest key, CourseSearchResponse served,
+                             Function<CourseSearchRequest, CourseSearchResponse> search) {
+        if (!enabled || key.isProfile() || !hasNextPage(key, served)) {
+            return;
+        }
+        CourseSearchRequest next = QueryFingerprint.normalize(key);
+        next.setPage(key.getPage() + 1);
+        Key cacheKey = new Key(next, indexGeneration.current());
+        if (cache.containsKey(cacheKey) || !inFlight.add(cacheKey)) {
+            return;
+        }
+        try {
+            executor.execute(() -> fetch(cacheKey, search));
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(cacheKey);
+            log.debug("Prefetch queue is full, not prefetching page {}", next.getPage());
+        }
+    }
+
+    public double getHitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0 : hits.count() / lookups;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void fetch(Key key, Function<CourseSearchRequest, CourseSearchResponse> search) {
+        try {
+            if (!concurrencyLimiter.tryAcquire()) {
+                log.debug("No room to prefetch page {} of {}", key.request().getPage(), key.request());
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                CourseSearchResponse response = search.apply(key.request());
+                // A timed-out, partial or degraded page is not worth keeping; the real request retries
+                if (response.isComplete()) {
+                    cache.put(key, new Prefetched(response, System.currentTimeMillis() + ttlMillis));
+                }
+            } finally {
+                concurrencyLimiter.release(System.nanoTime() - start);
+            }
+        } catch (Exception e) {
+            log.debug("Prefetch of page {} failed: {}", key.request().getPage(), e.getMessage());
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    private static boolean hasNextPage(CourseSearchRequest request, CourseSearchResponse served) {
+        long nextFrom = (long) (request.getPage() + 1) * request.getSize();
+        return served.getTotal() > nextFrom && nextFrom + request.getSize() <= MAX_RESULT_WINDOW;
+    }
+
+    private record Key(CourseSearchRequest request, long generation) {
+    }
+
+    private record Prefetched(CourseSearchResponse response, long expiresAt) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.core.search.Collector;
+import co.elastic.clients.elasticsearch.core.search.Profile;
+import co.elastic.clients.elasticsearch.core.search.QueryBreakdown;
+import co.elastic.clients.elasticsearch.core.search.QueryProfile;
+import co.elastic.clients.elasticsearch.core.search.SearchProfile;
+import co.elastic.clients.elasticsearch.core.search.ShardProfile;
+import com.undoschool.demo.dto.SearchProfileReport;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Converts the Elasticsearch Profile API output into {@link SearchProfileReport} entries. */
+final class SearchProfiles {
+
+    private SearchProfiles() {
+    }
+
+    static List<SearchProfileReport.Shard> shards(Profile profile) {
+        List<SearchProfileReport.Shard> shards = new ArrayList<>();
+        if (profile == null) {
+            return shards;
+        }
+        for (ShardProfile shardProfile : profile.shards()) {
+            SearchProfileReport.Shard shard = new SearchProfileReport.Shard();
+            shard.setId(shardProfile.id());
+            List<SearchProfileReport.QueryNode> query = new ArrayList<>();
+            long rewriteNanos = 0;
+            long collectNanos = 0;
+            for (SearchProfile search : shardProfile.searches()) {
+                rewriteNanos += search.rewriteTime();
+                for (Collector collector : search.collector()) {
+                    collectNanos += collector.timeInNanos();
+                }
+                search.query().forEach(q -> query.add(node(q)));
+            }
+            shard.setRewriteMs(toMillis(rewriteNanos));
+            shard.setCollectMs(toMillis(collectNanos));
+            shard.setQuery(query);
+            shards.add(shard);
+        }
+        return shards;
+    }
+
+    private static SearchProfileReport.QueryNode node(QueryProfile queryProfile) {
+        SearchProfileReport.QueryNode node = new SearchProfileReport.QueryNode();
+        node.setType(queryProfile.type());
+        node.setDescription(queryProfile.description());
+        node.setTimeMs(toMillis(queryProfile.timeInNanos()));
+        node.setBreakdown(breakdown(queryProfile.breakdown()));
+        if (!queryProfile.children().isEmpty()) {
+            node.setChildren(queryProfile.children().stream().map(SearchProfiles::node).toList());
+        }
+        return node;
+    }
+
+    private static Map<String, Long> breakdown(QueryBreakdown breakdown) {
+        Map<String, Long> nanos = new LinkedHashMap<>();
+        putIfNonZero(nanos, "create_weight", breakdown.createWeight());
+        putIfNonZero(nanos, "build_scorer", breakdown.buildScorer());
+        putIfNonZero(nanos, "next_doc", breakdown.nextDoc());
+        putIfNonZero(nanos, "advance", breakdown.advance());
+        putIfNonZero(nanos, "match", breakdown.match());
+        putIfNonZero(nanos, "score", breakdown.score());
+        putIfNonZero(nanos, "shallow_advance", breakdown.shallowAdvance());
+        putIfNonZero(nanos, "compute_max_score", breakdown.computeMaxScore());
+        putIfNonZero(nanos, "set_min_competitive_score", breakdown.setMinCompetitiveScore());
+        return nanos;
+    }
+
+    private static void putIfNonZero(Map<String, Long> nanos, String phase, long value) {
+        if (value != 0) {
+            nanos.put(phase, value);
+        }
+    }
+
+    static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,216 @@
+package com.undoschool.demo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.WarmupReport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays representative searches through {@link CourseSearchService} after the data is
+ * loaded and before the node reports ready, so that the JIT has compiled the query
+ * building and JSON paths and Elasticsearch has the relevant files and caches warm by
+ * the time real traffic arrives. The searches come from {@code app.warmup.requests-file}
+ * plus, if present, the traffic sample captured by {@link TrafficSampler} on the last shutdown.
+ * Replays are left out of the traffic sample and the slow-query stats. One search is held
+ * out of the rounds, so the warm latency is measured on a search nothing was cached for.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchWarmup {
+
+    private static final TypeReference<List<CourseSearchRequest>> REQUEST_LIST = new TypeReference<>() {
+    };
+
+    private final CourseSearchService courseSearchService;
+    private final TrafficSampler trafficSampler;
+    private final SlowQueryLog slowQueryLog;
+    private final ObjectMapper objectMapper;
+    private final ResourceLoader resourceLoader;
+
+    @Value("${app.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.warmup.requests-file:classpath:warmup/search-requests.json}")
+    private String requestsFile;
+
+    @Value("${app.warmup.capture-file:}")
+    private String captureFile;
+
+    @Value("${app.warmup.rounds:3}")
+    private int rounds;
+
+    @Value("${app.warmup.max-duration-ms:20000}")
+    private long maxDurationMs;
+
+    private volatile WarmupReport report = statusOnly(WarmupReport.Status.PENDING);
+
+    public WarmupReport getReport() {
+        return report;
+    }
+
+    /** Runs the warm-up; failures of individual searches are counted, never thrown. */
+    public void warmUp() {
+        List<CourseSearchRequest> requests = enabled ? loadRequests() : List.of();
+        if (requests.isEmpty()) {
+            report = statusOnly(WarmupReport.Status.SKIPPED);
+            return;
+        }
+        report = statusOnly(WarmupReport.Status.RUNNING);
+        int total = requests.size();
+        CourseSearchRequest heldOut = holdOut(requests);
+        log.info("Warming up with {} searches x {} rounds", requests.size(), rounds);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+        List<long[]> completedRounds = new ArrayList<>();
+        long heldOutNanos = 0;
+        int errors = 0;
+        trafficSampler.setRecording(false);
+        slowQueryLog.setRecording(false);
+        try {
+            for (int round = 0; round < rounds && System.nanoTime() < deadline; round++) {
+                long[] latencies = new long[requests.size()];
+                int done = 0;
+                for (; done < requests.size() && System.nanoTime() < deadline; done++) {
+                    long requestStart = System.nanoTime();
+                    try {
+                        replay(requests.get(done));
+                    } catch (Exception e) {
+                        errors++;
+                        log.debug("Warm-up search failed: {}", e.getMessage());
+                    }
+                    latencies[done] = System.nanoTime() - requestStart;
+                }
+                completedRounds.add(Arrays.copyOf(latencies, done));
+            }
+            if (heldOut != null && !completedRounds.isEmpty()) {
+                long requestStart = System.nanoTime();
+                try {
+                    replay(heldOut);
+                    heldOutNanos = System.nanoTime() - requestStart;
+                } catch (Exception e) {
+                    errors++;
+                    log.debug("Warm-up search failed: {}", e.getMessage());
+                }
+            }
+        } finally {
+            trafficSampler.setRecording(true);
+            slowQueryLog.setRecording(true);
+        }
+
+        report = buildReport(total, completedRounds, heldOutNanos, errors, System.nanoTime() - start);
+        log.info("Search warm-up done in {} ms ({} rounds, {} errors): first search {} ms cold, "
+                        + "a search not replayed {} ms warm; p50 {} ms -> {} ms, max {} ms -> {} ms",
+                report.getDurationMillis(), report.getRounds(), errors,
+                report.getFirstRequestMs(), report.getHeldOutRequestMs(),
+                report.getFirstRoundP50Ms(), report.getLastRoundP50Ms(),
+                report.getFirstRoundMaxMs(), report.getLastRoundMaxMs());
+    }
+
+    /** Same work as the controller: the search, then serializing the response. */
+    private void replay(CourseSearchRequest request) throws IOException {
+        if (courseSearchService.canPassThrough(request)) {
+            courseSearchService.streamCourses(request, OutputStream.nullOutputStream());
+        } else {
+            objectMapper.writeValueAsBytes(courseSearchService.searchCourses(request));
+        }
+    }
+
+    /**
+     * Takes the last search that differs from all the others out of {@code requests}, to be
+     * run once after the rounds; null (and nothing removed) if there is no such search, or
+     * it is the only one.
+     */
+    static CourseSearchRequest holdOut(List<CourseSearchRequest> requests) {
+        if (requests.size() < 2) {
+            return null;
+        }
+        List<CourseSearchRequest> normalized = requests.stream().map(QueryFingerprint::normalize).toList();
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            CourseSearchRequest candidate = normalized.get(i);
+            if (normalized.stream().filter(candidate::equals).count() == 1) {
+                return requests.remove(i);
+            }
+        }
+        return null;
+    }
+
+    private List<CourseSearchRequest> loadRequests() {
+        List<CourseSearchRequest> requests = new ArrayList<>();
+        if (StringUtils.hasText(requestsFile)) {
+            Resource resource = resourceLoader.getResource(requestsFile);
+            try (InputStream in = resource.getInputStream()) {
+                requests.addAll(objectMapper.readValue(in, REQUEST_LIST));
+            } catch (IOException e) {
+                log.warn("Could not read warm-up searches from {}: {}", requestsFile, e.getMessage());
+            }
+        }
+        if (StringUtils.hasText(captureFile) && Files.isRegularFile(Path.of(captureFile))) {
+            try {
+                requests.addAll(objectMapper.readValue(Path.of(captureFile).toFile(), REQUEST_LIST));
+            } catch (IOException e) {
+                log.warn("Could not read captured traffic from {}: {}", captureFile, e.getMessage());
+            }
+        }
+        return requests;
+    }
+
+    private static WarmupReport buildReport(int requests, List<long[]> completedRounds, long heldOutNanos, int errors,
+                                            long tookNanos) {
+        WarmupReport result = statusOnly(WarmupReport.Status.DONE);
+        result.setRequests(requests);
+        result.setRounds(completedRounds.size());
+        result.setErrors(errors);
+        result.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(tookNanos));
+        if (completedRounds.isEmpty() || completedRounds.get(0).length == 0) {
+            return result;
+        }
+
+        long[] first = completedRounds.get(0);
+        long[] last = completedRounds.get(completedRounds.size() - 1);
+        if (last.length == 0) {
+            last = first;
+        }
+        result.setFirstRequestMs(toMillis(first[0]));
+        result.setHeldOutRequestMs(toMillis(heldOutNanos));
+        result.setFirstRoundP50Ms(toMillis(median(first)));
+        result.setFirstRoundMaxMs(toMillis(Arrays.stream(first).max().orElse(0)));
+        result.setLastRoundP50Ms(toMillis(median(last)));
+        result.setLastRoundMaxMs(toMillis(Arrays.stream(last).max().orElse(0)));
+        return result;
+    }
+
+    private static WarmupReport statusOnly(WarmupReport.Status status) {
+        WarmupReport result = new WarmupReport();
+        result.setStatus(status);
+        return result;
+    }
+
+    private static long median(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
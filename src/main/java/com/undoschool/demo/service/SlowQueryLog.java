@@ -0,0 +1,122 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.QueryFingerprintStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Records the latency of every search under its {@link QueryFingerprint} and logs the
+ * full request, with the tier and Elasticsearch query that answered it, only for searches
+ * slower than the threshold.
+ */
+@Component
+@Slf4j
+public class SlowQueryLog {
+
+    @Value("${app.search.slow-query.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.slow-query.threshold-ms:500}")
+    private long thresholdMs;
+
+    @Value("${app.search.slow-query.window-size:512}")
+    private int windowSize;
+
+    private final ConcurrentMap<String, LatencyStats> statsByFingerprint = new ConcurrentHashMap<>();
+    private volatile boolean recording = true;
+
+    /** Stops recording, e.g. while the warm-up replays its own requests. */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * @param tier  label of the query tier that answered, or null for filter-only searches
+     * @param query the Elasticsearch request that was sent, only rendered for slow searches
+     */
+    public void record(CourseSearchRequest request, String tier, Supplier<?> query, long tookNanos) {
+        if (!enabled || !recording) {
+            return;
+        }
+
+        String fingerprint = QueryFingerprint.of(request);
+        long tookMicros = TimeUnit.NANOSECONDS.toMicros(tookNanos);
+        boolean slow = tookMicros >= TimeUnit.MILLISECONDS.toMicros(thresholdMs);
+
+        statsByFingerprint
+                .computeIfAbsent(fingerprint, f -> new LatencyStats(windowSize))
+                .add(tookMicros, slow);
+
+        if (slow) {
+            log.warn("Slow search took {} ms (threshold {} ms) fingerprint=[{}] tier={} request={} query={}",
+                    tookMicros / 1000.0, thresholdMs, fingerprint, tier, request, query.get());
+        }
+    }
+
+    public List<QueryFingerprintStats> getStats(int limit) {
+        return statsByFingerprint.entrySet().stream()
+                .map(e -> e.getValue().snapshot(e.getKey()))
+                .sorted(Comparator.comparingDouble(QueryFingerprintStats::getP95Ms).reversed())
+                .limit(Math.max(limit, 0))
+                .collect(Collectors.toList());
+    }
+
+    public void reset() {
+        statsByFingerprint.clear();
+    }
+
+    /**
+     * Totals since the last reset plus a ring buffer of the most recent samples,
+     * from which the mean, max and percentiles are computed.
+     */
+    private static final class LatencyStats {
+
+        private final long[] window;
+        private int next;
+        private int filled;
+        private long count;
+        private long slowCount;
+
+        LatencyStats(int windowSize) {
+            this.window = new long[Math.max(windowSize, 1)];
+        }
+
+        synchronized void add(long micros, boolean slow) {
+            window[next] = micros;
+            next = (next + 1) % window.length;
+            filled = Math.min(filled + 1, window.length);
+            count++;
+            if (slow) {
+                slowCount++;
+            }
+        }
+
+        synchronized QueryFingerprintStats snapshot(String fingerprint) {
+            long[] samples = Arrays.copyOf(window, filled);
+            Arrays.sort(samples);
+            double mean = Arrays.stream(samples).average().orElse(0) / 1000.0;
+            double max = samples.length == 0 ? 0 : samples[samples.length - 1] / 1000.0;
+            return new QueryFingerprintStats(fingerprint, count, slowCount, mean,
+                    percentile(samples, 0.50), percentile(samples, 0.95), percentile(samples, 0.99), max);
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1000.0;
+        }
+    }
+}
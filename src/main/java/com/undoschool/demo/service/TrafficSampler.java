@@ -0,0 +1,93 @@
+package com.undoschool.demo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps a uniform random sample (reservoir sampling) of the searches this node has served.
+ * The sample can be fetched from {@code /api/admin/traffic-sample} and, with
+ * {@code app.warmup.capture-file} set, is written on shutdown so that the next start
+ * can replay it in {@link SearchWarmup}.
+ */
+@Component
+@Slf4j
+public class TrafficSampler {
+
+    private final ObjectMapper objectMapper;
+    private final int sampleSize;
+    private final String captureFile;
+
+    private final List<CourseSearchRequest> sample = new ArrayList<>();
+    private long seen;
+    private volatile boolean recording = true;
+
+    public TrafficSampler(ObjectMapper objectMapper,
+                          @Value("${app.warmup.sample-size:200}") int sampleSize,
+                          @Value("${app.warmup.capture-file:}") String captureFile) {
+        this.objectMapper = objectMapper;
+        this.sampleSize = sampleSize;
+        this.captureFile = captureFile;
+    }
+
+    public void record(CourseSearchRequest request) {
+        if (!recording || sampleSize <= 0) {
+            return;
+        }
+        CourseSearchRequest normalized = QueryFingerprint.normalize(request);
+        synchronized (sample) {
+            seen++;
+            if (sample.size() < sampleSize) {
+                sample.add(normalized);
+            } else {
+                long slot = ThreadLocalRandom.current().nextLong(seen);
+                if (slot < sampleSize) {
+                    sample.set((int) slot, normalized);
+                }
+            }
+        }
+    }
+
+    /** Stops recording, e.g. while the warm-up replays its own requests. */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    public List<CourseSearchRequest> getSample() {
+        synchronized (sample) {
+            return new ArrayList<>(sample);
+        }
+    }
+
+    @PreDestroy
+    void writeCaptureFile() {
+        if (!StringUtils.hasText(captureFile)) {
+            return;
+        }
+        List<CourseSearchRequest> captured = getSample();
+        if (captured.isEmpty()) {
+            return;
+        }
+        try {
+            Path path = Path.of(captureFile);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            objectMapper.writeValue(path.toFile(), captured);
+            log.info("Wrote {} sampled searches to {}", captured.size(), path);
+        } catch (IOException e) {
+            log.warn("Could not write traffic sample to {}: {}", captureFile, e.getMessage());
+        }
+    }
+}
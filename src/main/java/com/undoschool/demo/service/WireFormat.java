@@ -0,0 +1,109 @@
+package com.undoschool.demo.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content type of the requests the app sends over the low-level {@code RestClient}
+ * ({@code app.elasticsearch.wire-format}): {@code json}, or Elasticsearch's binary
+ * {@code smile} or {@code cbor}. The typed {@code ElasticsearchClient} only accepts JSON
+ * responses, so it is unaffected.
+ */
+@Component
+@Slf4j
+public class WireFormat {
+
+    public enum Format {
+        JSON("application/json", new JsonFactory()),
+        SMILE("application/smile", new SmileFactory()),
+        CBOR("application/cbor", new CBORFactory());
+
+        private final String contentType;
+        private final JsonFactory factory;
+
+        Format(String contentType, JsonFactory factory) {
+            this.contentType = contentType;
+            this.factory = factory;
+        }
+    }
+
+    private final Format format;
+    private final ObjectMapper mapper;
+    private final RequestOptions requestOptions;
+
+    public WireFormat(ObjectMapper objectMapper, @Value("${app.elasticsearch.wire-format:json}") String format) {
+        this.format = Format.valueOf(format.trim().toUpperCase());
+        // Same null handling as the typed client's JacksonJsonpMapper, so documents look alike either way
+        this.mapper = objectMapper.copyWith(this.format.factory)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        this.requestOptions = RequestOptions.DEFAULT.toBuilder()
+                .addHeader("Accept", this.format.contentType)
+                .build();
+        if (this.format == Format.CBOR) {
+            log.info("CBOR has no stream separator, so bulk requests stay JSON");
+        }
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public boolean isBinary() {
+        return format != Format.JSON;
+    }
+
+    /** Whether {@code _bulk} bodies can use this format; Elasticsearch needs a stream separator for them. */
+    public boolean supportsBulk() {
+        return format != Format.CBOR;
+    }
+
+    /** Byte that ends each line of a {@code _bulk} body. */
+    public byte streamSeparator() {
+        return format == Format.SMILE ? (byte) 0xFF : (byte) '\n';
+    }
+
+    /** The app's ObjectMapper configuration on top of this format. */
+    public ObjectMapper mapper() {
+        return mapper;
+    }
+
+    public JsonParser createParser(InputStream in) throws IOException {
+        return format.factory.createParser(in);
+    }
+
+    /** Sets {@code body} on {@code request} and asks for the response in the same format. */
+    public void setBody(Request request, byte[] body) {
+        request.setEntity(new ByteArrayEntity(body, ContentType.create(format.contentType)));
+        request.setOptions(requestOptions);
+    }
+
+    /** Re-encodes a JSON document, e.g. a search body rendered by the typed client, in this format. */
+    public byte[] fromJson(byte[] json) throws IOException {
+        if (format == Format.JSON) {
+            return json;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = Format.JSON.factory.createParser(json);
+             JsonGenerator generator = format.factory.createGenerator(out)) {
+            parser.nextToken();
+            generator.copyCurrentStructure(parser);
+        }
+        return out.toByteArray();
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.undoschool.demo.dto.CourseSearchResponse;
 import com.undoschool.demo.model.CourseDocument;
 import com.undoschool.demo.repository.CourseRepository;
+import com.undoschool.demo.service.CourseIndexLayout;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,13 +46,18 @@ class CourseSearchIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CourseIndexLayout courseIndexLayout;
+
     @DynamicPropertySource
     static void configureProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.elasticsearch.uris", elasticsearch::getHttpHostAddress);
     }
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
+        // The repository does not create the index; the app does, with the real settings and mappings
+        courseIndexLayout.ensureIndex();
         courseRepository.deleteAll();
 
         // Create test data with proper Completion objects
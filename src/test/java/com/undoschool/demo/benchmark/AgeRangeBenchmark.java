@@ -0,0 +1,107 @@
+package com.undoschool.demo.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeRelation;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.json.JsonData;
+import com.undoschool.demo.model.CourseDocument;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Age-overlap filters as two range queries on {@code minAge}/{@code maxAge} (one BKD lookup
+ * per bound, intersected) versus a single {@code intersects} query on the
+ * {@code ageRange} integer_range field, for a few typical age windows. Both forms must
+ * count the same hits; the benchmark fails otherwise.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AgeRangeBenchmark {
+
+    private static final String INDEX = "bench-courses-ages";
+    private static final int[][] AGE_WINDOWS = {{5, 7}, {8, 10}, {10, 12}, {13, 17}, {9, 9}};
+
+    @Test
+    void compareBoundFiltersAndRangeField() throws Exception {
+        int docs = BenchmarkSupport.docCount(2_000_000);
+        int iterations = BenchmarkSupport.iterations(500);
+
+        try (ElasticsearchContainer container = BenchmarkSupport.startElasticsearch();
+             RestClient restClient = BenchmarkSupport.restClient(container)) {
+            ElasticsearchClient client = BenchmarkSupport.client(restClient);
+
+            client.indices().create(c -> c.index(INDEX)
+                    .settings(s -> s.numberOfShards("1").numberOfReplicas("0"))
+                    .mappings(mappings()));
+            BenchmarkSupport.indexSyntheticCourses(client, INDEX, docs, course -> null);
+
+            List<BenchmarkSupport.Stats> results = new ArrayList<>();
+            for (int[] window : AGE_WINDOWS) {
+                long bounds = count(client, boundFilters(window[0], window[1]));
+                long range = count(client, rangeFilter(window[0], window[1]));
+                if (bounds != range) {
+                    throw new IllegalStateException("Ages " + window[0] + "-" + window[1] + ": " + bounds
+                            + " hits with minAge/maxAge, " + range + " with ageRange");
+                }
+
+                String label = "ages " + window[0] + "-" + window[1] + " (" + bounds + " hits)";
+                results.add(BenchmarkSupport.measure(label + ", 2 filters", 30, iterations,
+                        () -> client.search(search(boundFilters(window[0], window[1])), CourseDocument.class)));
+                results.add(BenchmarkSupport.measure(label + ", ageRange", 30, iterations,
+                        () -> client.search(search(rangeFilter(window[0], window[1])), CourseDocument.class)));
+            }
+            BenchmarkSupport.report("Age overlap filters, " + docs + " courses", results);
+        }
+    }
+
+    /** The pre-ageRange form: the course's max age is at least the requested min, and vice versa. */
+    private static Query boundFilters(int minAge, int maxAge) {
+        return BoolQuery.of(b -> b
+                .filter(f -> f.range(r -> r.field("maxAge").gte(JsonData.of(minAge))))
+                .filter(f -> f.range(r -> r.field("minAge").lte(JsonData.of(maxAge))))
+        )._toQuery();
+    }
+
+    private static Query rangeFilter(int minAge, int maxAge) {
+        return BoolQuery.of(b -> b
+                .filter(f -> f.range(r -> r
+                        .field("ageRange")
+                        .gte(JsonData.of(minAge))
+                        .lte(JsonData.of(maxAge))
+                        .relation(RangeRelation.Intersects)))
+        )._toQuery();
+    }
+
+    /** Filter-only, like a browse page: constant score, total hits counted, cache off. */
+    private static SearchRequest search(Query filter) {
+        return SearchRequest.of(s -> s
+                .index(INDEX)
+                .requestCache(false)
+                .query(q -> q.constantScore(c -> c.filter(filter)))
+                .trackTotalHits(t -> t.enabled(true))
+                .size(10));
+    }
+
+    private static long count(ElasticsearchClient client, Query filter) throws Exception {
+        return client.count(c -> c.index(INDEX).query(filter)).count();
+    }
+
+    private static TypeMapping mappings() {
+        return TypeMapping.of(m -> m
+                .properties("title", p -> p.text(t -> t))
+                .properties("description", p -> p.text(t -> t))
+                .properties("category", p -> p.keyword(k -> k))
+                .properties("type", p -> p.keyword(k -> k))
+                .properties("minAge", p -> p.integer(i -> i))
+                .properties("maxAge", p -> p.integer(i -> i))
+                .properties("ageRange", p -> p.integerRange(r -> r))
+                .properties("nextSessionDate", p -> p.date(d -> d.format("yyyy-MM-dd'T'HH:mm:ss"))));
+    }
+}
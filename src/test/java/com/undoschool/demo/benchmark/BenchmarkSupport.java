@@ -0,0 +1,180 @@
+package com.undoschool.demo.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.Config.ElasticsearchConfig;
+import com.undoschool.demo.model.CourseDocument;
+import com.undoschool.demo.service.CourseIndexer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Shared plumbing for the benchmarks in this package. They are skipped unless run with
+ * {@code -Dbenchmark=true}, e.g. {@code mvn test -Dbenchmark=true -Dtest=IndexSortBenchmark},
+ * and need Docker for the Elasticsearch container.
+ */
+final class BenchmarkSupport {
+
+    static final String[] CATEGORIES = {
+            "Technology", "Science", "Mathematics", "Art", "Literature", "History",
+            "Music", "Games", "Communication", "Languages", "Sports", "Cooking"
+    };
+
+    private static final String[] WORDS = {
+            "introduction", "advanced", "creative", "programming", "robotics", "writing", "painting",
+            "algebra", "chemistry", "history", "chess", "coding", "design", "music", "theory", "club",
+            "workshop", "fundamentals", "adventure", "science", "math", "olympiad", "public", "speaking"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    static ElasticsearchContainer startElasticsearch() {
+        ElasticsearchContainer container =
+                new ElasticsearchContainer("docker.elastic.co/elasticsearch/elasticsearch:8.11.0")
+                        .withEnv("xpack.security.enabled", "false")
+                        .withEnv("discovery.type", "single-node")
+                        .withEnv("ES_JAVA_OPTS", "-Xms2g -Xmx2g");
+        container.start();
+        return container;
+    }
+
+    static RestClient restClient(ElasticsearchContainer container) {
+        return RestClient.builder(HttpHost.create(container.getHttpHostAddress())).build();
+    }
+
+    static ElasticsearchClient client(RestClient restClient) {
+        return new ElasticsearchClient(new RestClientTransport(restClient,
+                new JacksonJsonpMapper(new ElasticsearchConfig().objectMapper())));
+    }
+
+    static int docCount(int defaultCount) {
+        return Integer.getInteger("benchmark.docs", defaultCount);
+    }
+
+    static int iterations(int defaultIterations) {
+        return Integer.getInteger("benchmark.iterations", defaultIterations);
+    }
+
+    /** Deterministic synthetic course number {@code i}. */
+    static CourseDocument syntheticCourse(int i) {
+        Random random = new Random(i);
+        CourseDocument course = new CourseDocument();
+        course.setId(String.valueOf(i));
+        course.setTitle(word(random) + " " + word(random) + " " + word(random));
+        course.setDescription(String.join(" ", word(random), word(random), word(random), word(random),
+                word(random), word(random), word(random), word(random)));
+        course.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        course.setType(CourseDocument.CourseType.values()[random.nextInt(CourseDocument.CourseType.values().length)]);
+        int minAge = 4 + random.nextInt(12);
+        course.setMinAge(minAge);
+        course.setMaxAge(minAge + 1 + random.nextInt(6));
+        course.setPrice(Math.round(random.nextDouble() * 50000) / 100.0);
+        course.setNextSessionDate(LocalDateTime.of(2025, 1, 1, 0, 0, 1)
+                .plusMinutes(random.nextInt(3 * 365 * 24 * 60)));
+        return course;
+    }
+
+    /**
+     * Bulk-indexes {@code count} synthetic courses into {@code index}, routing each one with
+     * {@code routing} (which may return {@code null}).
+     */
+    static void indexSyntheticCourses(ElasticsearchClient client, String index, int count,
+                                      Function<CourseDocument, String> routing) throws Exception {
+        final int batchSize = 5000;
+        ObjectMapper mapper = new ElasticsearchConfig().objectMapper();
+        for (int from = 0; from < count; from += batchSize) {
+            BulkRequest.Builder bulk = new BulkRequest.Builder();
+            for (int i = from; i < Math.min(from + batchSize, count); i++) {
+                CourseDocument course = syntheticCourse(i);
+                bulk.operations(op -> op.index(idx -> idx
+                        .index(index)
+                        .id(course.getId())
+                        .routing(routing.apply(course))
+                        .document(CourseIndexer.indexSource(mapper, course))));
+            }
+            BulkResponse response = client.bulk(bulk.build());
+            if (response.errors()) {
+                throw new IllegalStateException("Bulk indexing into " + index + " reported errors");
+            }
+        }
+        client.indices().refresh(r -> r.index(index));
+        client.indices().forcemerge(f -> f.index(index).maxNumSegments(1L));
+    }
+
+    /** Runs {@code warmup} untimed and {@code iterations} timed calls and returns the latencies. */
+    static Stats measure(String name, int warmup, int iterations, Callable<?> call) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            call.call();
+        }
+        long[] nanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            call.call();
+            nanos[i] = System.nanoTime() - start;
+        }
+        return new Stats(name, nanos);
+    }
+
+    static void report(String title, List<Stats> results) {
+        System.out.println();
+        System.out.println("== " + title);
+        System.out.printf(Locale.ROOT, "%-40s %10s %10s %10s %10s%n", "case", "mean ms", "p50 ms", "p99 ms", "max ms");
+        for (Stats stats : results) {
+            System.out.printf(Locale.ROOT, "%-40s %10.2f %10.2f %10.2f %10.2f%n",
+                    stats.name, stats.meanMs(), stats.percentileMs(0.50), stats.percentileMs(0.99), stats.maxMs());
+        }
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    static final class Stats {
+
+        final String name;
+        private final long[] sortedNanos;
+
+        Stats(String name, long[] nanos) {
+            this.name = name;
+            this.sortedNanos = nanos.clone();
+            Arrays.sort(sortedNanos);
+        }
+
+        static Stats merge(String name, List<long[]> samples) {
+            List<Long> all = new ArrayList<>();
+            samples.forEach(s -> Arrays.stream(s).forEach(all::add));
+            return new Stats(name, all.stream().mapToLong(Long::longValue).toArray());
+        }
+
+        double meanMs() {
+            return Arrays.stream(sortedNanos).average().orElse(0) / 1_000_000.0;
+        }
+
+        double percentileMs(double p) {
+            if (sortedNanos.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sortedNanos.length) - 1;
+            return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1_000_000.0;
+        }
+
+        double maxMs() {
+            return sortedNanos.length == 0 ? 0 : sortedNanos[sortedNanos.length - 1] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.undoschool.demo.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import com.undoschool.demo.model.CourseDocument;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Category-filtered searches under concurrency against a multi-shard index where every
+ * search fans out to all shards, versus the same catalog routed by category where each
+ * search hits a single shard. Thread count with {@code -Dbenchmark.threads=...}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CategoryRoutingBenchmark {
+
+    private static final String FAN_OUT = "bench-courses-fan-out";
+    private static final String ROUTED = "bench-courses-routed";
+    private static final String SHARDS = "6";
+
+    @Test
+    void compareFanOutAndRoutedSearches() throws Exception {
+        int docs = BenchmarkSupport.docCount(1_000_000);
+        int iterations = BenchmarkSupport.iterations(500);
+        int threads = Integer.getInteger("benchmark.threads", 16);
+
+        try (ElasticsearchContainer container = BenchmarkSupport.startElasticsearch();
+             RestClient restClient = BenchmarkSupport.restClient(container)) {
+            ElasticsearchClient client = BenchmarkSupport.client(restClient);
+
+            for (String index : List.of(FAN_OUT, ROUTED)) {
+                client.indices().create(c -> c.index(index)
+                        .settings(s -> s.numberOfShards(SHARDS).numberOfReplicas("0"))
+                        .mappings(mappings()));
+            }
+            BenchmarkSupport.indexSyntheticCourses(client, FAN_OUT, docs, course -> null);
+            BenchmarkSupport.indexSyntheticCourses(client, ROUTED, docs, CourseDocument::getCategory);
+
+            List<BenchmarkSupport.Stats> results = new ArrayList<>();
+            List<String> throughput = new ArrayList<>();
+            for (String index : List.of(FAN_OUT, ROUTED)) {
+                boolean routed = index.equals(ROUTED);
+                // Warm up both layouts the same way before timing
+                concurrently(threads, 20, thread -> categorySearch(index, thread, routed), client);
+
+                long start = System.nanoTime();
+                List<long[]> samples = concurrently(threads, iterations,
+                        thread -> categorySearch(index, thread, routed), client);
+                double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+                String name = (routed ? "routed" : "fan-out") + ", " + threads + " threads";
+                results.add(BenchmarkSupport.Stats.merge(name, samples));
+                throughput.add(String.format(Locale.ROOT, "%-40s %10.0f searches/s",
+                        name, threads * (double) iterations / seconds));
+            }
+            BenchmarkSupport.report("Category routing, " + docs + " courses on " + SHARDS
+                    + " shards, category-filtered search", results);
+            throughput.forEach(System.out::println);
+        }
+    }
+
+    private interface SearchFactory {
+        SearchRequest forThread(int thread);
+    }
+
+    /** Runs {@code iterations} searches on each of {@code threads} threads and returns their latencies. */
+    private static List<long[]> concurrently(int threads, int iterations, SearchFactory searches,
+                                             ElasticsearchClient client) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    long[] nanos = new long[iterations];
+                    for (int i = 0; i < iterations; i++) {
+                        SearchRequest search = searches.forThread(thread + i);
+                        long start = System.nanoTime();
+                        client.search(search, CourseDocument.class);
+                        nanos[i] = System.nanoTime() - start;
+                    }
+                    return nanos;
+                }));
+            }
+            List<long[]> samples = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                samples.add(future.get());
+            }
+            return samples;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static SearchRequest categorySearch(String index, int n, boolean routed) {
+        String category = BenchmarkSupport.CATEGORIES[n % BenchmarkSupport.CATEGORIES.length];
+        return SearchRequest.of(s -> s
+                .index(index)
+                .routing(routed ? category : null)
+                .requestCache(false)
+                .query(Query.of(q -> q.constantScore(c -> c
+                        .filter(f -> f.term(t -> t.field("category").value(category))))))
+                .sort(so -> so.field(f -> f.field("nextSessionDate").order(SortOrder.Asc)))
+                .size(10));
+    }
+
+    private static TypeMapping mappings() {
+        return TypeMapping.of(m -> m
+                .properties("title", p -> p.text(t -> t))
+                .properties("description", p -> p.text(t -> t))
+                .properties("category", p -> p.keyword(k -> k))
+                .properties("type", p -> p.keyword(k -> k))
+                .properties("minAge", p -> p.integer(i -> i))
+                .properties("maxAge", p -> p.integer(i -> i))
+                .properties("price", p -> p.double_(d -> d))
+                .properties("nextSessionDate", p -> p.date(d -> d.format("yyyy-MM-dd'T'HH:mm:ss"))));
+    }
+}
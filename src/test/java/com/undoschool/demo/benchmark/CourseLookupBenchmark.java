@@ -0,0 +1,74 @@
+package com.undoschool.demo.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import com.undoschool.demo.model.CourseDocument;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Hydrating a cart of course ids: one {@code GET} per course, versus a single
+ * {@code _mget}, versus a single {@code ids} query (what partitioned or routed layouts
+ * fall back to). Cart size with {@code -Dbenchmark.cart=...}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CourseLookupBenchmark {
+
+    private static final String INDEX = "bench-courses-lookup";
+
+    @Test
+    void compareGetsMultiGetAndIdsQuery() throws Exception {
+        int docs = BenchmarkSupport.docCount(500_000);
+        int iterations = BenchmarkSupport.iterations(300);
+        int cartSize = Integer.getInteger("benchmark.cart", 50);
+
+        try (ElasticsearchContainer container = BenchmarkSupport.startElasticsearch();
+             RestClient restClient = BenchmarkSupport.restClient(container)) {
+            ElasticsearchClient client = BenchmarkSupport.client(restClient);
+
+            client.indices().create(c -> c.index(INDEX)
+                    .settings(s -> s.numberOfShards("3").numberOfReplicas("0"))
+                    .mappings(mappings()));
+            BenchmarkSupport.indexSyntheticCourses(client, INDEX, docs, course -> null);
+
+            Random random = new Random(42);
+            List<String> cart = new ArrayList<>();
+            while (cart.size() < cartSize) {
+                cart.add(String.valueOf(random.nextInt(docs)));
+            }
+
+            List<BenchmarkSupport.Stats> results = new ArrayList<>();
+            results.add(BenchmarkSupport.measure(cartSize + " x GET", 20, iterations, () -> {
+                for (String id : cart) {
+                    client.get(g -> g.index(INDEX).id(id), CourseDocument.class);
+                }
+                return null;
+            }));
+            results.add(BenchmarkSupport.measure("1 x _mget", 20, iterations,
+                    () -> client.mget(m -> m.index(INDEX).ids(cart), CourseDocument.class)));
+            results.add(BenchmarkSupport.measure("1 x ids query", 20, iterations,
+                    () -> client.search(s -> s
+                            .index(INDEX)
+                            .query(q -> q.ids(i -> i.values(cart)))
+                            .size(cart.size()), CourseDocument.class)));
+            BenchmarkSupport.report("Cart of " + cartSize + " courses, " + docs + " in the index", results);
+        }
+    }
+
+    private static TypeMapping mappings() {
+        return TypeMapping.of(m -> m
+                .properties("title", p -> p.text(t -> t))
+                .properties("description", p -> p.text(t -> t))
+                .properties("category", p -> p.keyword(k -> k))
+                .properties("type", p -> p.keyword(k -> k))
+                .properties("minAge", p -> p.integer(i -> i))
+                .properties("maxAge", p -> p.integer(i -> i))
+                .properties("nextSessionDate", p -> p.date(d -> d.format("yyyy-MM-dd'T'HH:mm:ss"))));
+    }
+}
@@ -0,0 +1,86 @@
+package com.undoschool.demo.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.indices.SegmentSortOrder;
+import com.undoschool.demo.model.CourseDocument;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filter-only "upcoming" searches against an index sorted on nextSessionDate versus an
+ * unsorted one, each with exact hit counting and with counting disabled. Defaults to the
+ * 5M-course catalog from the request; use {@code -Dbenchmark.docs=...} for a quicker run.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IndexSortBenchmark {
+
+    private static final String SORTED = "bench-courses-sorted";
+    private static final String UNSORTED = "bench-courses-unsorted";
+
+    @Test
+    void compareSortedAndUnsortedLayouts() throws Exception {
+        int docs = BenchmarkSupport.docCount(5_000_000);
+        int iterations = BenchmarkSupport.iterations(200);
+
+        try (ElasticsearchContainer container = BenchmarkSupport.startElasticsearch();
+             RestClient restClient = BenchmarkSupport.restClient(container)) {
+            ElasticsearchClient client = BenchmarkSupport.client(restClient);
+
+            client.indices().create(c -> c.index(SORTED)
+                    .settings(s -> s.numberOfShards("1").numberOfReplicas("0")
+                            .sort(so -> so.field("nextSessionDate").order(SegmentSortOrder.Asc)))
+                    .mappings(mappings()));
+            client.indices().create(c -> c.index(UNSORTED)
+                    .settings(s -> s.numberOfShards("1").numberOfReplicas("0"))
+                    .mappings(mappings()));
+            BenchmarkSupport.indexSyntheticCourses(client, SORTED, docs, course -> null);
+            BenchmarkSupport.indexSyntheticCourses(client, UNSORTED, docs, course -> null);
+
+            List<BenchmarkSupport.Stats> results = new ArrayList<>();
+            for (String index : List.of(UNSORTED, SORTED)) {
+                for (boolean trackTotalHits : List.of(true, false)) {
+                    int[] category = {0};
+                    results.add(BenchmarkSupport.measure(
+                            index + (trackTotalHits ? " exact total" : " no total"), 20, iterations,
+                            () -> client.search(upcomingSearch(index,
+                                    BenchmarkSupport.CATEGORIES[category[0]++ % BenchmarkSupport.CATEGORIES.length],
+                                    trackTotalHits), CourseDocument.class)));
+                }
+            }
+            BenchmarkSupport.report("Index sort, " + docs + " courses, filter-only upcoming search", results);
+        }
+    }
+
+    private static SearchRequest upcomingSearch(String index, String category, boolean trackTotalHits) {
+        return SearchRequest.of(s -> s
+                .index(index)
+                .requestCache(false)
+                .query(Query.of(q -> q.bool(b -> b
+                        .must(m -> m.matchAll(a -> a))
+                        .filter(f -> f.term(t -> t.field("category").value(category))))))
+                .sort(so -> so.field(f -> f.field("nextSessionDate").order(SortOrder.Asc)))
+                .size(10)
+                .trackTotalHits(t -> t.enabled(trackTotalHits)));
+    }
+
+    private static TypeMapping mappings() {
+        return TypeMapping.of(m -> m
+                .properties("title", p -> p.text(t -> t))
+                .properties("description", p -> p.text(t -> t))
+                .properties("category", p -> p.keyword(k -> k))
+                .properties("type", p -> p.keyword(k -> k))
+                .properties("minAge", p -> p.integer(i -> i))
+                .properties("maxAge", p -> p.integer(i -> i))
+                .properties("price", p -> p.double_(d -> d))
+                .properties("nextSessionDate", p -> p.date(d -> d.format("yyyy-MM-dd'T'HH:mm:ss"))));
+    }
+}
@@ -0,0 +1,118 @@
+package com.undoschool.demo.benchmark;
+
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.Config.ElasticsearchConfig;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.CourseSearchResponse;
+import com.undoschool.demo.model.CourseDocument;
+import com.undoschool.demo.service.CourseHitStreamer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Per-request allocation and CPU of turning a 50-hit Elasticsearch response into the
+ * {@code /api/search} body: decoding into {@code SearchResponse<CourseDocument>} and
+ * serializing a {@link CourseSearchResponse} again, versus {@link CourseHitStreamer}
+ * copying {@code _source} through. Runs in-process, no container needed.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PassThroughBenchmark {
+
+    private static final int HITS = 50;
+
+    private final ObjectMapper objectMapper = new ElasticsearchConfig().objectMapper();
+    private final JsonpMapper jsonpMapper = new JacksonJsonpMapper(objectMapper);
+    private final CourseHitStreamer courseHitStreamer = new CourseHitStreamer(objectMapper);
+    private final JsonpDeserializer<SearchResponse<CourseDocument>> deserializer =
+            SearchResponse.createSearchResponseDeserializer(JsonpDeserializer.of(CourseDocument.class));
+
+    private interface Transcoder {
+        void transcode(InputStream searchResponse, CourseSearchRequest request, OutputStream out) throws Exception;
+    }
+
+    @Test
+    void compareDataBindingAndPassThrough() throws Exception {
+        int iterations = BenchmarkSupport.iterations(20_000);
+        byte[] searchResponse = searchResponse();
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setSize(HITS);
+
+        List<String> rows = new ArrayList<>();
+        rows.add(measure("data binding (decode + encode)", iterations, searchResponse, request, this::dataBound));
+        rows.add(measure("pass-through (_source copy)", iterations, searchResponse, request, courseHitStreamer::write));
+
+        System.out.println();
+        System.out.println("== Search response handling, " + HITS + " hits, "
+                + searchResponse.length + " bytes from Elasticsearch");
+        System.out.printf(Locale.ROOT, "%-40s %14s %14s%n", "case", "bytes/op", "cpu us/op");
+        rows.forEach(System.out::println);
+    }
+
+    private void dataBound(InputStream in, CourseSearchRequest request, OutputStream out) throws Exception {
+        SearchResponse<CourseDocument> response =
+                deserializer.deserialize(jsonpMapper.jsonProvider().createParser(in), jsonpMapper);
+        List<CourseDocument> courses = response.hits().hits().stream()
+                .map(Hit::source)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        long total = response.hits().total().value();
+        objectMapper.writeValue(out, new CourseSearchResponse(total, courses, request.getPage(), request.getSize(),
+                (int) Math.ceil((double) total / request.getSize())));
+    }
+
+    private static String measure(String name, int iterations, byte[] searchResponse, CourseSearchRequest request,
+                                  Transcoder transcoder) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+        for (int i = 0; i < iterations; i++) {
+            out.reset();
+            transcoder.transcode(new ByteArrayInputStream(searchResponse), request, out);
+        }
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            out.reset();
+            transcoder.transcode(new ByteArrayInputStream(searchResponse), request, out);
+        }
+        double bytesPerOp = (threads.getThreadAllocatedBytes(threadId) - allocatedBefore) / (double) iterations;
+        double cpuMicrosPerOp = (threads.getCurrentThreadCpuTime() - cpuBefore) / 1_000.0 / iterations;
+        return String.format(Locale.ROOT, "%-40s %14.0f %14.1f", name, bytesPerOp, cpuMicrosPerOp);
+    }
+
+    /** A search response as Elasticsearch returns it without filter_path, which both cases can read. */
+    private byte[] searchResponse() throws Exception {
+        StringBuilder json = new StringBuilder("{\"took\":4,\"timed_out\":false,"
+                + "\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+                + "\"hits\":{\"total\":{\"value\":4210,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[");
+        for (int i = 0; i < HITS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            CourseDocument course = BenchmarkSupport.syntheticCourse(i);
+            json.append("{\"_index\":\"courses\",\"_id\":\"").append(course.getId())
+                    .append("\",\"_score\":null,\"_source\":").append(objectMapper.writeValueAsString(course))
+                    .append(",\"sort\":[").append(1_735_689_601_000L + i).append("]}");
+        }
+        return json.append("]}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,115 @@
+package com.undoschool.demo.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import com.undoschool.demo.model.CourseDocument;
+import com.undoschool.demo.service.QueryTier;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text searches answered by one query ORing every clause (exact, edge n-gram, fuzzy,
+ * wildcard) versus tiered execution that only widens to fuzzy and wildcard matching when
+ * a cheaper tier finds fewer than {@code MIN_HITS}. The query mix is mostly plain words,
+ * with some typos and some infix fragments that need the wider tiers.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TieredQueryBenchmark {
+
+    private static final String INDEX = "bench-courses-text";
+    private static final long MIN_HITS = 10;
+
+    private static final String[] PLAIN = {"robotics", "chess", "algebra", "painting", "coding", "chemistry", "music"};
+    private static final String[] TYPOS = {"robotcs", "chemestry", "algebr"};
+    private static final String[] INFIX = {"botic", "gebr"};
+
+    @Test
+    void compareSingleQueryAndTieredExecution() throws Exception {
+        int docs = BenchmarkSupport.docCount(1_000_000);
+        int iterations = BenchmarkSupport.iterations(500);
+
+        try (ElasticsearchContainer container = BenchmarkSupport.startElasticsearch();
+             RestClient restClient = BenchmarkSupport.restClient(container)) {
+            ElasticsearchClient client = BenchmarkSupport.client(restClient);
+
+            client.indices().create(c -> c.index(INDEX)
+                    .settings(s -> s.numberOfShards("1").numberOfReplicas("0")
+                            .analysis(a -> a
+                                    .analyzer("edge_ngram_analyzer", an -> an.custom(cu -> cu
+                                            .tokenizer("edge_ngram_tokenizer").filter("lowercase")))
+                                    .tokenizer("edge_ngram_tokenizer", t -> t.definition(d -> d.edgeNgram(e -> e
+                                            .minGram(2).maxGram(15)
+                                            .tokenChars(co.elastic.clients.elasticsearch._types.analysis.TokenChar.Letter,
+                                                    co.elastic.clients.elasticsearch._types.analysis.TokenChar.Digit))))))
+                    .mappings(mappings()));
+            BenchmarkSupport.indexSyntheticCourses(client, INDEX, docs, course -> null);
+
+            List<String> mix = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                mix.add(PLAIN[i % PLAIN.length]);
+            }
+            mix.add(TYPOS[0]);
+            mix.add(TYPOS[1]);
+            mix.add(INFIX[0]);
+
+            Map<QueryTier, Integer> answeredBy = new EnumMap<>(QueryTier.class);
+            int[] next = {0};
+            BenchmarkSupport.Stats single = BenchmarkSupport.measure("single query, all clauses", 30, iterations,
+                    () -> client.search(search(mix.get(next[0]++ % mix.size()), QueryTier.INFIX), CourseDocument.class));
+            next[0] = 0;
+            BenchmarkSupport.Stats tiered = BenchmarkSupport.measure("tiered, min hits " + MIN_HITS, 30, iterations,
+                    () -> answeredBy.merge(tiered(client, mix.get(next[0]++ % mix.size())), 1, Integer::sum));
+
+            List<BenchmarkSupport.Stats> results = new ArrayList<>(List.of(single, tiered));
+            for (String[] group : List.of(PLAIN, TYPOS, INFIX)) {
+                String query = group[0];
+                results.add(BenchmarkSupport.measure("  single: " + query, 10, iterations / 5,
+                        () -> client.search(search(query, QueryTier.INFIX), CourseDocument.class)));
+                results.add(BenchmarkSupport.measure("  tiered: " + query, 10, iterations / 5,
+                        () -> tiered(client, query)));
+            }
+            BenchmarkSupport.report("Tiered text queries, " + docs + " courses", results);
+            System.out.println("Answered by tier (incl. warm-up): " + answeredBy);
+        }
+    }
+
+    /** The same loop as CourseSearchService: widen until a tier has enough hits. */
+    private static QueryTier tiered(ElasticsearchClient client, String query) throws Exception {
+        for (QueryTier tier : QueryTier.values()) {
+            SearchResponse<CourseDocument> response = client.search(search(query, tier), CourseDocument.class);
+            if (tier == QueryTier.INFIX || response.hits().total().value() >= MIN_HITS) {
+                return tier;
+            }
+        }
+        throw new IllegalStateException("unreachable");
+    }
+
+    private static SearchRequest search(String query, QueryTier tier) {
+        return SearchRequest.of(s -> s
+                .index(INDEX)
+                .requestCache(false)
+                .query(q -> q.bool(b -> b.should(tier.textClauses(query)).minimumShouldMatch("1")))
+                .size(10));
+    }
+
+    private static TypeMapping mappings() {
+        return TypeMapping.of(m -> m
+                .properties("title", p -> p.text(t -> t
+                        .analyzer("english")
+                        .fields("keyword", f -> f.keyword(k -> k))
+                        .fields("edge_ngram", f -> f.text(e -> e.analyzer("edge_ngram_analyzer")))))
+                .properties("description", p -> p.text(t -> t.analyzer("standard")))
+                .properties("category", p -> p.keyword(k -> k))
+                .properties("type", p -> p.keyword(k -> k))
+                .properties("nextSessionDate", p -> p.date(d -> d.format("yyyy-MM-dd'T'HH:mm:ss"))));
+    }
+}
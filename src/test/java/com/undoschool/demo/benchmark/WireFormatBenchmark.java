@@ -0,0 +1,113 @@
+package com.undoschool.demo.benchmark;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.Config.ElasticsearchConfig;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.model.CourseDocument;
+import com.undoschool.demo.service.CourseHitStreamer;
+import com.undoschool.demo.service.WireFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bytes on the wire and decode CPU for JSON, SMILE and CBOR: the size of a 50-hit search
+ * response and a 500-course bulk body in each format, and the cost of turning the search
+ * response into the {@code /api/search} body with {@link CourseHitStreamer}. Runs
+ * in-process, no container needed.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WireFormatBenchmark {
+
+    private static final int HITS = 50;
+    private static final int BULK_COURSES = 500;
+
+    private final ObjectMapper objectMapper = new ElasticsearchConfig().objectMapper();
+    private final CourseHitStreamer courseHitStreamer = new CourseHitStreamer(objectMapper);
+
+    @Test
+    void compareWireFormats() throws Exception {
+        int iterations = BenchmarkSupport.iterations(20_000);
+        byte[] jsonSearchResponse = jsonSearchResponse();
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setSize(HITS);
+
+        List<String> rows = new ArrayList<>();
+        for (WireFormat.Format format : WireFormat.Format.values()) {
+            WireFormat wireFormat = new WireFormat(objectMapper, format.name());
+            byte[] searchResponse = wireFormat.fromJson(jsonSearchResponse);
+            String bulkBytes = wireFormat.supportsBulk() ? String.valueOf(bulkBody(wireFormat).length) : "n/a";
+            rows.add(String.format(Locale.ROOT, "%-8s %16d %12s %s", format, searchResponse.length, bulkBytes,
+                    decodeCost(wireFormat, searchResponse, request, iterations)));
+        }
+
+        System.out.println();
+        System.out.println("== Wire formats, " + HITS + "-hit search response, " + BULK_COURSES + "-course bulk body");
+        System.out.printf(Locale.ROOT, "%-8s %16s %12s %14s %14s%n",
+                "format", "search bytes", "bulk bytes", "decode B/op", "decode us/op");
+        rows.forEach(System.out::println);
+    }
+
+    private String decodeCost(WireFormat wireFormat, byte[] searchResponse, CourseSearchRequest request,
+                              int iterations) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+
+        for (int i = 0; i < iterations; i++) {
+            out.reset();
+            decode(wireFormat, searchResponse, request, out);
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long cpuBefore = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < iterations; i++) {
+            out.reset();
+            decode(wireFormat, searchResponse, request, out);
+        }
+        double bytesPerOp = (threads.getThreadAllocatedBytes(threadId) - allocatedBefore) / (double) iterations;
+        double cpuMicrosPerOp = (threads.getCurrentThreadCpuTime() - cpuBefore) / 1_000.0 / iterations;
+        return String.format(Locale.ROOT, "%14.0f %14.1f", bytesPerOp, cpuMicrosPerOp);
+    }
+
+    private void decode(WireFormat wireFormat, byte[] searchResponse, CourseSearchRequest request,
+                        ByteArrayOutputStream out) throws Exception {
+        JsonParser parser = wireFormat.createParser(new ByteArrayInputStream(searchResponse));
+        courseHitStreamer.write(parser, request, Map.of(), out);
+    }
+
+    private byte[] bulkBody(WireFormat wireFormat) throws Exception {
+        ObjectMapper mapper = wireFormat.mapper();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (int i = 0; i < BULK_COURSES; i++) {
+            CourseDocument course = BenchmarkSupport.syntheticCourse(i);
+            body.write(mapper.writeValueAsBytes(Map.of("index", Map.of("_index", "courses", "_id", course.getId()))));
+            body.write(wireFormat.streamSeparator());
+            body.write(mapper.writeValueAsBytes(course));
+            body.write(wireFormat.streamSeparator());
+        }
+        return body.toByteArray();
+    }
+
+    private byte[] jsonSearchResponse() throws Exception {
+        StringBuilder json = new StringBuilder("{\"took\":4,\"timed_out\":false,"
+                + "\"hits\":{\"total\":{\"value\":4210,\"relation\":\"eq\"},\"hits\":[");
+        for (int i = 0; i < HITS; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"_source\":")
+                    .append(objectMapper.writeValueAsString(BenchmarkSupport.syntheticCourse(i)))
+                    .append('}');
+        }
+        return json.append("]}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,41 @@
+package com.undoschool.demo.controller;
+
+import com.undoschool.demo.service.AdaptiveConcurrencyLimiter;
+import com.undoschool.demo.service.ClientRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdmissionInterceptor interceptor = new AdmissionInterceptor(
+            new AdaptiveConcurrencyLimiter(meterRegistry, 20, 4, 200, 1.5),
+            new ClientRateLimiter(1, 1), meterRegistry, List.of("partner-key", " "));
+
+    @Test
+    void testKnownKeysGetTheirOwnBucket() {
+        assertEquals("key:partner-key", interceptor.clientKey(request("10.0.0.1", "partner-key")));
+    }
+
+    @Test
+    void testUnknownOrMissingKeysAreBucketedByAddress() {
+        assertEquals("addr:10.0.0.1", interceptor.clientKey(request("10.0.0.1", "made-up-1")));
+        assertEquals("addr:10.0.0.1", interceptor.clientKey(request("10.0.0.1", "made-up-2")));
+        assertEquals("addr:10.0.0.1", interceptor.clientKey(request("10.0.0.1", " ")));
+        assertEquals("addr:10.0.0.1", interceptor.clientKey(request("10.0.0.1", null)));
+    }
+
+    private static MockHttpServletRequest request(String address, String apiKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/search");
+        request.setRemoteAddr(address);
+        if (apiKey != null) {
+            request.addHeader(AdmissionInterceptor.API_KEY_HEADER, apiKey);
+        }
+        return request;
+    }
+}
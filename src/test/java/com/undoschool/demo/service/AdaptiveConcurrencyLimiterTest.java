@@ -0,0 +1,49 @@
+package com.undoschool.demo.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final AdaptiveConcurrencyLimiter limiter =
+            new AdaptiveConcurrencyLimiter(new SimpleMeterRegistry(), 20, 4, 200, 1.5);
+
+    @Test
+    void testRejectsBeyondTheLimit() {
+        for (int i = 0; i < 20; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyHoldsAndShrinksWhenItInflates() {
+        for (int i = 0; i < 200; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), limiter.getLimit());
+        }
+        int healthyLimit = limiter.getLimit();
+        assertTrue(healthyLimit > 20, "limit should grow under steady latency, was " + healthyLimit);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(100), limiter.getLimit());
+        }
+        assertTrue(limiter.getLimit() < healthyLimit / 2,
+                "limit should shrink once latency inflates, was " + limiter.getLimit());
+        assertTrue(limiter.getLimit() >= 4);
+    }
+
+    @Test
+    void testLightLoadDoesNotMoveTheLimit() {
+        for (int i = 0; i < 200; i++) {
+            limiter.onSample(TimeUnit.MILLISECONDS.toNanos(10), 1);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+}
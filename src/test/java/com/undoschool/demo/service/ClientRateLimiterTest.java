@@ -0,0 +1,45 @@
+package com.undoschool.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final ClientRateLimiter rateLimiter = new ClientRateLimiter(0.5, 3, now::get);
+
+    @Test
+    void testBurstThenRetryAfterUntilRefilled() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("key:a"));
+        }
+        assertEquals(2, rateLimiter.tryAcquire("key:a"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        assertEquals(0, rateLimiter.tryAcquire("key:a"));
+    }
+
+    @Test
+    void testClientsHaveSeparateBuckets() {
+        for (int i = 0; i < 3; i++) {
+            rateLimiter.tryAcquire("key:a");
+        }
+        assertTrue(rateLimiter.tryAcquire("key:a") > 0);
+        assertEquals(0, rateLimiter.tryAcquire("key:b"));
+    }
+
+    @Test
+    void testIdleClientsAreEvicted() {
+        rateLimiter.tryAcquire("key:a");
+        rateLimiter.evictIdleClients();
+        assertEquals(1, rateLimiter.trackedClients());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        rateLimiter.evictIdleClients();
+        assertEquals(0, rateLimiter.trackedClients());
+    }
+}
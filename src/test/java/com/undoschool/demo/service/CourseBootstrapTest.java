@@ -0,0 +1,59 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.Config.ElasticsearchConfig;
+import com.undoschool.demo.model.CourseDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseBootstrapTest {
+
+    private final CourseBootstrap courseBootstrap =
+            new CourseBootstrap(null, null, null, new ElasticsearchConfig().objectMapper());
+
+    @Test
+    void testDumpRoundTrip() throws Exception {
+        CourseDocument robotics = course("1", "Robotics for Beginners");
+        CourseDocument chess = course("2", "Chess Club");
+
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(dump)) {
+            courseBootstrap.writeDump(List.of(robotics), gzip);
+            courseBootstrap.writeDump(List.of(chess), gzip);
+        }
+
+        List<CourseDocument> restored = courseBootstrap.readDump(new ByteArrayInputStream(dump.toByteArray()));
+
+        assertEquals(List.of(robotics, chess), restored);
+        assertEquals(8, restored.get(0).getAgeRange().getGte());
+        assertEquals(12, restored.get(0).getAgeRange().getLte());
+    }
+
+    @Test
+    void testEmptyDump() throws Exception {
+        ByteArrayOutputStream dump = new ByteArrayOutputStream();
+        new GZIPOutputStream(dump).close();
+
+        assertTrue(courseBootstrap.readDump(new ByteArrayInputStream(dump.toByteArray())).isEmpty());
+    }
+
+    private static CourseDocument course(String id, String title) {
+        CourseDocument course = new CourseDocument();
+        course.setId(id);
+        course.setTitle(title);
+        course.setDescription("Learn " + title.toLowerCase());
+        course.setCategory("Technology");
+        course.setType(CourseDocument.CourseType.COURSE);
+        course.setMinAge(8);
+        course.setMaxAge(12);
+        course.setPrice(99.0);
+        course.setNextSessionDate(LocalDateTime.of(2026, 11, 2, 16, 0, 1));
+        return course;
+    }
+}
@@ -0,0 +1,109 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.*;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.FacetBucket;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseFacetsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 8, 14, 10, 37, 12);
+
+    private IndexGeneration indexGeneration;
+    private CourseFacets courseFacets;
+
+    @BeforeEach
+    void setUp() {
+        DateFilterRounding rounding = new DateFilterRounding(DateFilterRounding.Unit.HOURS,
+                Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+        indexGeneration = new IndexGeneration();
+        courseFacets = new CourseFacets(indexGeneration, rounding);
+        ReflectionTestUtils.setField(courseFacets, "cacheSize", 10);
+        ReflectionTestUtils.setField(courseFacets, "priceInterval", 50.0);
+        ReflectionTestUtils.setField(courseFacets, "ageBands", List.of("3-5", "6-8", "9-12"));
+    }
+
+    @Test
+    void testAgeBandsCountWhatTheAgeFilterMatches() {
+        for (boolean onAgeRange : List.of(true, false)) {
+            Map<String, Query> bands = courseFacets.aggregations(onAgeRange)
+                    .get(CourseFacets.AGE_BANDS).filters().filters().keyed();
+
+            assertEquals(List.of("3-5", "6-8", "9-12"), List.copyOf(bands.keySet()));
+            assertEquals(AgeFilter.overlapping(6, 8, onAgeRange).toString(), bands.get("6-8").toString());
+        }
+    }
+
+    @Test
+    void testBucketsAreMappedFromTheAggregations() {
+        Map<String, Aggregate> aggregations = Map.of(
+                CourseFacets.CATEGORY, Aggregate.of(a -> a.sterms(t -> t.buckets(b -> b.array(List.of(
+                        StringTermsBucket.of(x -> x.key(FieldValue.of("Art")).docCount(3)),
+                        StringTermsBucket.of(x -> x.key(FieldValue.of("Math")).docCount(1))))))),
+                CourseFacets.PRICE, Aggregate.of(a -> a.histogram(h -> h.buckets(b -> b.array(List.of(
+                        HistogramBucket.of(x -> x.key(50).docCount(4))))))),
+                CourseFacets.AGE_BANDS, Aggregate.of(a -> a.filters(f -> f.buckets(b -> b.keyed(Map.of(
+                        "9-12", FiltersBucket.of(x -> x.docCount(2)),
+                        "3-5", FiltersBucket.of(x -> x.docCount(5))))))));
+
+        Map<String, List<FacetBucket>> facets = courseFacets.extract(aggregations);
+
+        assertEquals(List.of(new FacetBucket("Art", 3), new FacetBucket("Math", 1)), facets.get(CourseFacets.CATEGORY));
+        assertEquals(List.of(new FacetBucket("50-100", 4)), facets.get(CourseFacets.PRICE));
+        // In configured order; bands Elasticsearch did not return are left out
+        assertEquals(List.of(new FacetBucket("3-5", 5), new FacetBucket("9-12", 2)), facets.get(CourseFacets.AGE_BANDS));
+        assertFalse(facets.containsKey(CourseFacets.TYPE));
+    }
+
+    @Test
+    void testCachedFacetsAreServedUntilTheIndexGenerationMoves() {
+        Map<String, List<FacetBucket>> facets = Map.of(CourseFacets.TYPE, List.of(new FacetBucket("COURSE", 7)));
+        courseFacets.cache(filters(NOW), facets);
+
+        CourseSearchRequest nextPage = filters(NOW);
+        nextPage.setPage(3);
+        nextPage.setSort("priceAsc");
+        assertSame(facets, courseFacets.getCached(nextPage));
+
+        indexGeneration.bump();
+        assertNull(courseFacets.getCached(filters(NOW)));
+    }
+
+    @Test
+    void testOnlyFilterOnlySearchesAreCacheable() {
+        CourseSearchRequest request = filters(NOW);
+        assertTrue(courseFacets.isCacheable(request));
+
+        request.setQ("robotics");
+        assertFalse(courseFacets.isCacheable(request));
+    }
+
+    @Test
+    void testStartDatesInTheSamePeriodShareCachedFacets() {
+        Map<String, List<FacetBucket>> facets = Map.of(CourseFacets.CATEGORY, List.of(new FacetBucket("Art", 3)));
+        courseFacets.cache(filters(NOW.minusMinutes(20)), facets);
+
+        assertSame(facets, courseFacets.getCached(filters(NOW)));
+        assertNull(courseFacets.getCached(filters(NOW.minusHours(1))));
+    }
+
+    private static CourseSearchRequest filters(LocalDateTime startDate) {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setCategory("Art");
+        request.setStartDate(startDate);
+        request.setFacets(true);
+        return request;
+    }
+}
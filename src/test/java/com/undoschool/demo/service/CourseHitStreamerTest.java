@@ -0,0 +1,171 @@
+package com.undoschool.demo.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.Config.ElasticsearchConfig;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.CourseSearchResponse;
+import com.undoschool.demo.model.CourseDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseHitStreamerTest {
+
+    private final ObjectMapper objectMapper = new ElasticsearchConfig().objectMapper();
+    private final CourseHitStreamer courseHitStreamer = new CourseHitStreamer(objectMapper);
+
+    @Test
+    void testStreamedEnvelopeMatchesDataBoundResponse() throws Exception {
+        CourseDocument python = course("1", "Python for Kids", 120.0);
+        CourseDocument chess = course("2", "Chess Club", 45.5);
+        String searchResponse = "{\"took\":3,\"timed_out\":false,"
+                + "\"hits\":{\"total\":{\"value\":12,\"relation\":\"eq\"},\"max_score\":null,\"hits\":["
+                + hit(python) + "," + hit(chess) + "]}}";
+
+        JsonNode streamed = stream(searchResponse, request(1, 2));
+        JsonNode dataBound = objectMapper.readTree(objectMapper.writeValueAsBytes(
+                new CourseSearchResponse(12, List.of(python, chess), 1, 2, 6)));
+
+        assertEquals(dataBound, streamed);
+    }
+
+    @Test
+    void testDisabledHitCountIsReportedAsLowerBound() throws Exception {
+        String searchResponse = "{\"hits\":{\"hits\":[" + hit(course("1", "Robotics", 80.0)) + "]}}";
+
+        JsonNode streamed = stream(searchResponse, request(2, 10));
+
+        assertEquals(21, streamed.get("total").asLong());
+        assertEquals("gte", streamed.get("totalRelation").asText());
+        assertEquals(1, streamed.get("courses").size());
+    }
+
+    @Test
+    void testEmptyFilteredResponse() throws Exception {
+        JsonNode streamed = stream("{\"hits\":{\"total\":{\"value\":0,\"relation\":\"eq\"}}}", request(0, 10));
+
+        assertEquals(0, streamed.get("total").asLong());
+        assertEquals(0, streamed.get("courses").size());
+        assertFalse(streamed.has("totalRelation"));
+    }
+
+    @Test
+    void testSpellingSuggestionIsReadAfterTheHits() throws Exception {
+        String searchResponse = "{\"hits\":{\"total\":{\"value\":0,\"relation\":\"eq\"},\"hits\":[]},"
+                + "\"suggest\":{\"did_you_mean\":[{\"text\":\"robotcs\",\"offset\":0,\"length\":7,"
+                + "\"options\":[{\"text\":\"robotics\",\"score\":0.3},{\"text\":\"robots\",\"score\":0.1}]}]}}";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        CourseHitStreamer.Written written = courseHitStreamer.write(
+                new ByteArrayInputStream(searchResponse.getBytes(StandardCharsets.UTF_8)), request(0, 10), out);
+        JsonNode streamed = objectMapper.readTree(out.toByteArray());
+
+        assertEquals(0, written.total());
+        assertEquals("robotics", written.suggestion());
+        assertEquals("robotics", streamed.get("suggestion").asText());
+        assertEquals(0, streamed.get("courses").size());
+    }
+
+    @Test
+    void testTimedOutAndFailedShardsAreFlagged() throws Exception {
+        String searchResponse = "{\"timed_out\":true,\"_shards\":{\"failed\":1},"
+                + "\"hits\":{\"total\":{\"value\":1,\"relation\":\"eq\"},\"hits\":["
+                + hit(course("1", "Robotics", 80.0)) + "]}}";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        CourseHitStreamer.Written written = courseHitStreamer.write(
+                new ByteArrayInputStream(searchResponse.getBytes(StandardCharsets.UTF_8)), request(0, 10), out);
+        JsonNode streamed = objectMapper.readTree(out.toByteArray());
+
+        assertTrue(written.timedOut());
+        assertTrue(streamed.get("timedOut").asBoolean());
+        assertTrue(streamed.get("partial").asBoolean());
+        assertEquals(1, streamed.get("courses").size());
+    }
+
+    @Test
+    void testCompleteResponseHasNoTimeoutFlags() throws Exception {
+        JsonNode streamed = stream("{\"timed_out\":false,\"_shards\":{\"failed\":0},"
+                + "\"hits\":{\"total\":{\"value\":0,\"relation\":\"eq\"}}}", request(0, 10));
+
+        assertFalse(streamed.has("timedOut"));
+        assertFalse(streamed.has("partial"));
+    }
+
+    @Test
+    void testCompletenessIsKnownBeforeTheFirstByte() throws Exception {
+        List<String> seen = new ArrayList<>();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void write(byte[] b, int off, int len) {
+                seen.add("bytes");
+                super.write(b, off, len);
+            }
+        };
+
+        courseHitStreamer.write(parser("{\"timed_out\":false,\"_shards\":{\"failed\":0},"
+                + "\"hits\":{\"total\":{\"value\":1,\"relation\":\"eq\"},\"hits\":["
+                + hit(course("1", "Robotics", 80.0)) + "]}}"), request(0, 10), Map.of(), out,
+                complete -> seen.add("complete=" + complete));
+        assertEquals("complete=true", seen.get(0));
+        assertTrue(seen.size() > 1);
+
+        seen.clear();
+        courseHitStreamer.write(parser("{\"timed_out\":false,\"_shards\":{\"failed\":2},"
+                + "\"hits\":{\"total\":{\"value\":0,\"relation\":\"eq\"},\"hits\":[]}}"),
+                request(0, 10), Map.of(), out, complete -> seen.add("complete=" + complete));
+        assertEquals("complete=false", seen.get(0));
+
+        // Without the shard header completeness is unknown, which is not complete
+        seen.clear();
+        courseHitStreamer.write(parser("{\"hits\":{\"total\":{\"value\":0,\"relation\":\"eq\"}}}"),
+                request(0, 10), Map.of(), out, complete -> seen.add("complete=" + complete));
+        assertEquals("complete=false", seen.get(0));
+    }
+
+    private JsonParser parser(String searchResponse) throws Exception {
+        return objectMapper.getFactory().createParser(searchResponse);
+    }
+
+    private JsonNode stream(String searchResponse, CourseSearchRequest request) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        courseHitStreamer.write(new ByteArrayInputStream(searchResponse.getBytes(StandardCharsets.UTF_8)), request, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private String hit(CourseDocument course) throws Exception {
+        return "{\"_index\":\"courses\",\"_id\":\"" + course.getId() + "\",\"_score\":null,\"_source\":"
+                + objectMapper.writeValueAsString(course) + ",\"sort\":[1]}";
+    }
+
+    private static CourseSearchRequest request(int page, int size) {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setPage(page);
+        request.setSize(size);
+        return request;
+    }
+
+    private static CourseDocument course(String id, String title, double price) {
+        CourseDocument course = new CourseDocument();
+        course.setId(id);
+        course.setTitle(title);
+        course.setDescription("Learn " + title.toLowerCase());
+        course.setCategory("Technology");
+        course.setType(CourseDocument.CourseType.COURSE);
+        course.setMinAge(8);
+        course.setMaxAge(12);
+        course.setPrice(price);
+        course.setNextSessionDate(LocalDateTime.of(2026, 11, 2, 16, 0));
+        return course;
+    }
+}
@@ -0,0 +1,43 @@
+package com.undoschool.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.Config.ElasticsearchConfig;
+import com.undoschool.demo.model.CourseDocument;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseIndexerTest {
+
+    private final ObjectMapper objectMapper = new ElasticsearchConfig().objectMapper();
+
+    @Test
+    void testAgeRangeIsIndexedButNotReturned() {
+        CourseDocument course = new CourseDocument();
+        course.setId("1");
+        course.setTitle("Chess Club");
+        course.setMinAge(8);
+        course.setMaxAge(12);
+
+        JsonNode source = CourseIndexer.indexSource(objectMapper, course);
+        assertEquals(8, source.path("ageRange").path("gte").asInt());
+        assertEquals(12, source.path("ageRange").path("lte").asInt());
+
+        JsonNode response = objectMapper.valueToTree(course);
+        assertFalse(response.has("ageRange"));
+        assertEquals(8, response.path("minAge").asInt());
+    }
+
+    @Test
+    void testIndexedSourceReadsBackWithTheRangeDerived() throws Exception {
+        CourseDocument course = new CourseDocument();
+        course.setId("2");
+        course.setMinAge(5);
+
+        CourseDocument read = objectMapper.treeToValue(CourseIndexer.indexSource(objectMapper, course),
+                CourseDocument.class);
+        assertEquals(5, read.getAgeRange().getGte());
+        assertNull(read.getAgeRange().getLte());
+    }
+}
@@ -0,0 +1,137 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.MgetRequest;
+import co.elastic.clients.elasticsearch.core.MgetResponse;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
+import com.undoschool.demo.model.CourseDocument;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseLookupServiceTest {
+
+    private final FakeTransport transport = new FakeTransport(this::answer);
+    private volatile boolean failing;
+    private ExecutorService executor;
+    private CourseLookupService lookupService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        CourseIndexLayout layout = new CourseIndexLayout(null);
+        ReflectionTestUtils.setField(layout, "coursesIndex", "courses");
+        lookupService = new CourseLookupService(new ElasticsearchClient(transport), layout,
+                new IndexGeneration(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(lookupService, "cacheSize", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLookupsShareOneMultiGet() throws Exception {
+        configure(500, 100);
+
+        List<Future<Optional<CourseDocument>>> lookups = lookUpConcurrently("1", "2", "3");
+
+        for (int i = 0; i < lookups.size(); i++) {
+            assertEquals(String.valueOf(i + 1), lookups.get(i).get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        }
+        assertEquals(1, multiGets().size());
+        assertEquals(Set.of("1", "2", "3"), Set.copyOf(multiGets().get(0).ids()));
+    }
+
+    @Test
+    void fullBatchIsFetchedWithoutWaitingOutTheWindow() throws Exception {
+        configure(30_000, 2);
+
+        List<Future<Optional<CourseDocument>>> lookups = lookUpConcurrently("1", "2");
+
+        // Both lookups, including the one that started the batch, are answered well inside the window
+        for (Future<Optional<CourseDocument>> lookup : lookups) {
+            assertTrue(lookup.get(5, TimeUnit.SECONDS).isPresent());
+        }
+        assertEquals(1, multiGets().size());
+        assertEquals(Set.of("1", "2"), Set.copyOf(multiGets().get(0).ids()));
+    }
+
+    @Test
+    void failedMultiGetReachesEveryWaiter() throws Exception {
+        configure(500, 100);
+        failing = true;
+
+        List<Future<Optional<CourseDocument>>> lookups = lookUpConcurrently("1", "2", "3");
+
+        for (Future<Optional<CourseDocument>> lookup : lookups) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> lookup.get(5, TimeUnit.SECONDS));
+            assertEquals("Failed to look up courses", e.getCause().getMessage());
+        }
+        assertEquals(1, multiGets().size());
+    }
+
+    @Test
+    void cachedLookupsSkipElasticsearch() throws Exception {
+        configure(0, 100);
+
+        assertEquals(2, lookupService.findByIds(List.of("1", "2")).size());
+        assertTrue(lookupService.findById("1").isPresent());
+
+        assertEquals(1, multiGets().size());
+    }
+
+    private void configure(long batchWindowMs, int maxBatchSize) {
+        ReflectionTestUtils.setField(lookupService, "batchWindowMs", batchWindowMs);
+        ReflectionTestUtils.setField(lookupService, "maxBatchSize", maxBatchSize);
+    }
+
+    /** Starts one single-id lookup per id, all released together. */
+    private List<Future<Optional<CourseDocument>>> lookUpConcurrently(String... ids) throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(ids.length);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<CourseDocument>>> lookups = new ArrayList<>();
+        for (String id : ids) {
+            lookups.add(executor.submit(() -> {
+                ready.countDown();
+                start.await();
+                return lookupService.findById(id);
+            }));
+        }
+        ready.await();
+        start.countDown();
+        return lookups;
+    }
+
+    private List<MgetRequest> multiGets() {
+        return transport.requests(MgetRequest.class);
+    }
+
+    private static CourseDocument course(String id) {
+        CourseDocument course = new CourseDocument();
+        course.setId(id);
+        course.setTitle("Course " + id);
+        return course;
+    }
+
+    /** Answers {@code _mget} with a course for every id, or fails while {@link #failing} is set. */
+    private Object answer(Object request) throws IOException {
+        if (failing) {
+            throw new IOException("connection refused");
+        }
+        List<MultiGetResponseItem<CourseDocument>> docs = ((MgetRequest) request).ids().stream()
+                .map(id -> MultiGetResponseItem.<CourseDocument>of(i -> i
+                        .result(r -> r.index("courses").id(id).found(true).source(course(id)))))
+                .toList();
+        return MgetResponse.<CourseDocument>of(m -> m.docs(docs));
+    }
+}
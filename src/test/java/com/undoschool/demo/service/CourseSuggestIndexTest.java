@@ -0,0 +1,44 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.model.CourseDocument;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CourseSuggestIndexTest {
+
+    @Test
+    void testEntryHasInputsAndContexts() {
+        CourseDocument course = new CourseDocument();
+        course.setId("7");
+        course.setTitle("Robotics for Beginners");
+        course.setDescription("Introduction to robotics programming and building with hands-on projects");
+        course.setCategory("Technology");
+        course.setType(CourseDocument.CourseType.COURSE);
+
+        Map<String, Object> entry = CourseSuggestIndex.entryFor(course);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> suggest = (Map<String, Object>) entry.get("suggest");
+        assertEquals(List.of("Robotics for Beginners", "robotics for beginners", "Technology",
+                "introduction", "robotics", "programming", "building", "with"), suggest.get("input"));
+        assertEquals(Map.of("category", List.of("Technology"), "type", List.of("COURSE")), suggest.get("contexts"));
+    }
+
+    @Test
+    void testMissingContextsGetAPlaceholderAndUntitledCoursesAreSkipped() {
+        CourseDocument course = new CourseDocument();
+        course.setId("1");
+        course.setTitle("Chess Club");
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> suggest = (Map<String, Object>) CourseSuggestIndex.entryFor(course).get("suggest");
+        assertEquals(Map.of("category", List.of("none"), "type", List.of("none")), suggest.get("contexts"));
+
+        course.setTitle(" ");
+        assertNull(CourseSuggestIndex.entryFor(course));
+    }
+}
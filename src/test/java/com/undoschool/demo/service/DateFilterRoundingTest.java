@@ -0,0 +1,61 @@
+package com.undoschool.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateFilterRoundingTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 8, 14, 10, 37, 12);
+
+    @Test
+    void testStartDateInCurrentPeriodIsRoundedDown() {
+        DateFilterRounding rounding = rounding(DateFilterRounding.Unit.HOURS);
+        LocalDateTime hour = LocalDateTime.of(2025, 8, 14, 10, 0);
+
+        assertEquals(hour, rounding.effectiveStart(NOW));
+        assertEquals(hour, rounding.effectiveStart(hour));
+        assertEquals(hour, rounding.effectiveStart(NOW.minusMinutes(5)));
+    }
+
+    @Test
+    void testAbsoluteStartDatesAreSentUnchanged() {
+        DateFilterRounding rounding = rounding(DateFilterRounding.Unit.HOURS);
+        LocalDateTime earlier = NOW.minusHours(1);
+        LocalDateTime later = NOW.plusMinutes(10);
+
+        assertEquals(earlier, rounding.effectiveStart(earlier));
+        assertEquals(later, rounding.effectiveStart(later));
+    }
+
+    @Test
+    void testWeeksAndMonthsRoundLikeDateMath() {
+        // 2025-08-14 is a Thursday
+        assertEquals(LocalDateTime.of(2025, 8, 11, 0, 0),
+                rounding(DateFilterRounding.Unit.WEEKS).effectiveStart(NOW.minusDays(3)));
+        assertEquals(LocalDateTime.of(2025, 8, 1, 0, 0),
+                rounding(DateFilterRounding.Unit.MONTHS).effectiveStart(NOW.minusDays(13)));
+        assertEquals(NOW.minusDays(14), rounding(DateFilterRounding.Unit.MONTHS).effectiveStart(NOW.minusDays(14)));
+    }
+
+    @Test
+    void testNoneNeverRounds() {
+        assertEquals(NOW, rounding(DateFilterRounding.Unit.NONE).effectiveStart(NOW));
+    }
+
+    @Test
+    void testSettingIsValidatedOnce() {
+        assertEquals(DateFilterRounding.Unit.DAYS, new DateFilterRounding(" days ").getUnit());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> new DateFilterRounding("HOUR"));
+        assertTrue(e.getMessage().contains("app.search.date-filter-rounding"));
+    }
+
+    private static DateFilterRounding rounding(DateFilterRounding.Unit unit) {
+        return new DateFilterRounding(unit, Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+}
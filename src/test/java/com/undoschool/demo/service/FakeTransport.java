@@ -0,0 +1,70 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.Endpoint;
+import co.elastic.clients.transport.TransportOptions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A transport for the typed client that answers every request through a {@link Handler}
+ * instead of a cluster, and records the requests it was sent.
+ */
+class FakeTransport implements ElasticsearchTransport {
+
+    @FunctionalInterface
+    interface Handler {
+        /** The response to {@code request}, of the type its endpoint returns. */
+        Object answer(Object request) throws IOException;
+    }
+
+    private final JsonpMapper mapper = new JacksonJsonpMapper();
+    private final List<Object> requests = Collections.synchronizedList(new ArrayList<>());
+    private final Handler handler;
+
+    FakeTransport(Handler handler) {
+        this.handler = handler;
+    }
+
+    /** Requests sent so far of the given type, in order. */
+    <T> List<T> requests(Class<T> type) {
+        synchronized (requests) {
+            return requests.stream().filter(type::isInstance).map(type::cast).toList();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <RequestT, ResponseT, ErrorT> ResponseT performRequest(
+            RequestT request, Endpoint<RequestT, ResponseT, ErrorT> endpoint, TransportOptions options)
+            throws IOException {
+        requests.add(request);
+        return (ResponseT) handler.answer(request);
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> CompletableFuture<ResponseT> performRequestAsync(
+            RequestT request, Endpoint<RequestT, ResponseT, ErrorT> endpoint, TransportOptions options) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public JsonpMapper jsonpMapper() {
+        return mapper;
+    }
+
+    @Override
+    public TransportOptions options() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,47 @@
+package com.undoschool.demo.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexGenerationTest {
+
+    @Test
+    void testInstancesOnTheSameClusterGenerationShareValidators() {
+        IndexGeneration first = new IndexGeneration();
+        IndexGeneration second = new IndexGeneration();
+        second.bump();
+
+        first.observe("epoch", 7, 1_000);
+        second.observe("epoch", 7, 1_000);
+
+        assertEquals(first.etag(), second.etag());
+        assertEquals(1_000, second.lastModified());
+    }
+
+    @Test
+    void testLocalChangesAreNotMistakenForTheClusterGeneration() {
+        IndexGeneration generation = new IndexGeneration();
+        generation.observe("epoch", 7, 1_000);
+        String shared = generation.etag();
+        long before = generation.current();
+
+        generation.bump();
+        // A read that started before the increment for this change must not undo it
+        generation.observe("epoch", 7, 1_000);
+
+        assertNotEquals(shared, generation.etag());
+        assertEquals(before + 1, generation.current());
+    }
+
+    @Test
+    void testNewerClusterGenerationsMoveTheCounter() {
+        IndexGeneration generation = new IndexGeneration();
+        long adopted = generation.observe("epoch", 7, 1_000);
+
+        assertEquals(adopted, generation.observe("epoch", 6, 900));
+        assertTrue(generation.observe("epoch", 8, 2_000) > adopted);
+        assertTrue(generation.observe("recreated", 1, 3_000) > adopted + 1);
+        assertEquals("W/\"recreated-1\"", generation.etag());
+    }
+}
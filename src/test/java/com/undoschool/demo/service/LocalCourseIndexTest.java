@@ -0,0 +1,130 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.Config.ElasticsearchConfig;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.CourseSearchResponse;
+import com.undoschool.demo.model.CourseDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalCourseIndexTest {
+
+    private LocalCourseIndex localCourseIndex;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        localCourseIndex = new LocalCourseIndex(new ElasticsearchConfig().objectMapper(), new DateFilterRounding("HOURS"));
+        ReflectionTestUtils.setField(localCourseIndex, "enabled", true);
+        ReflectionTestUtils.setField(localCourseIndex, "readPreference", "local");
+        localCourseIndex.open();
+
+        localCourseIndex.replaceAll(List.of(
+                createCourse("1", "Python Programming", "Learn Python basics", "Technology",
+                        CourseDocument.CourseType.COURSE, 12, 18, 299.99,
+                        LocalDateTime.of(2025, 8, 15, 10, 0, 1)),
+                createCourse("2", "Physics 101", "Introduction to Physics", "Science",
+                        CourseDocument.CourseType.COURSE, 14, 18, 199.99,
+                        LocalDateTime.of(2025, 8, 20, 14, 0, 1)),
+                createCourse("3", "Art Workshop", "Creative art session", "Art",
+                        CourseDocument.CourseType.ONE_TIME, 8, 16, 45.00,
+                        LocalDateTime.of(2025, 7, 25, 11, 0, 1))
+        ));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        localCourseIndex.close();
+    }
+
+    private CourseDocument createCourse(String id, String title, String description,
+                                        String category, CourseDocument.CourseType type,
+                                        int minAge, int maxAge, double price,
+                                        LocalDateTime nextSessionDate) {
+        CourseDocument course = new CourseDocument();
+        course.setId(id);
+        course.setTitle(title);
+        course.setDescription(description);
+        course.setCategory(category);
+        course.setType(type);
+        course.setMinAge(minAge);
+        course.setMaxAge(maxAge);
+        course.setPrice(price);
+        course.setNextSessionDate(nextSessionDate);
+        return course;
+    }
+
+    @Test
+    void testIsPreferredOnceLoaded() {
+        assertTrue(localCourseIndex.isAvailable());
+        assertTrue(localCourseIndex.isPreferred());
+    }
+
+    @Test
+    void testSearchByKeyword() {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQ("Python");
+
+        CourseSearchResponse response = localCourseIndex.search(request);
+
+        assertEquals(1, response.getTotal());
+        assertEquals("Python Programming", response.getCourses().get(0).getTitle());
+    }
+
+    @Test
+    void testPartialAndFuzzySearch() {
+        CourseSearchRequest partial = new CourseSearchRequest();
+        partial.setQ("prog");
+        assertEquals("Python Programming", localCourseIndex.search(partial).getCourses().get(0).getTitle());
+
+        CourseSearchRequest fuzzy = new CourseSearchRequest();
+        fuzzy.setQ("Phisics");
+        CourseSearchResponse response = localCourseIndex.search(fuzzy);
+        assertEquals(1, response.getTotal());
+        assertEquals("Physics 101", response.getCourses().get(0).getTitle());
+    }
+
+    @Test
+    void testFiltersAndRanges() {
+        CourseSearchRequest byCategory = new CourseSearchRequest();
+        byCategory.setCategory("Science");
+        assertEquals("Physics 101", localCourseIndex.search(byCategory).getCourses().get(0).getTitle());
+
+        CourseSearchRequest byAge = new CourseSearchRequest();
+        byAge.setMinAge(10);
+        byAge.setMaxAge(12);
+        CourseSearchResponse ageResponse = localCourseIndex.search(byAge);
+        assertEquals(2, ageResponse.getTotal());
+
+        CourseSearchRequest byPrice = new CourseSearchRequest();
+        byPrice.setMinPrice(100.0);
+        byPrice.setMaxPrice(250.0);
+        assertEquals("Physics 101", localCourseIndex.search(byPrice).getCourses().get(0).getTitle());
+
+        CourseSearchRequest byDate = new CourseSearchRequest();
+        byDate.setStartDate(LocalDateTime.of(2025, 8, 16, 0, 0));
+        assertEquals(1, localCourseIndex.search(byDate).getTotal());
+    }
+
+    @Test
+    void testSortAndPagination() {
+        CourseSearchRequest upcoming = new CourseSearchRequest();
+        assertEquals("Art Workshop", localCourseIndex.search(upcoming).getCourses().get(0).getTitle());
+
+        CourseSearchRequest priceDesc = new CourseSearchRequest();
+        priceDesc.setSort("priceDesc");
+        priceDesc.setPage(1);
+        priceDesc.setSize(1);
+
+        CourseSearchResponse response = localCourseIndex.search(priceDesc);
+        assertEquals(3, response.getTotal());
+        assertEquals(3, response.getTotalPages());
+        assertEquals("Physics 101", response.getCourses().get(0).getTitle());
+    }
+}
@@ -0,0 +1,48 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.model.CourseDocument;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryFingerprintTest {
+
+    @Test
+    void testRequestsWithSameShapeShareFingerprint() {
+        CourseSearchRequest science = new CourseSearchRequest();
+        science.setCategory("Science");
+        science.setMinAge(8);
+
+        CourseSearchRequest art = new CourseSearchRequest();
+        art.setCategory("Art");
+        art.setMaxAge(12);
+
+        assertEquals(QueryFingerprint.of(science), QueryFingerprint.of(art));
+        assertEquals("q=none|filters=age,category|sort=upcoming|depth=0", QueryFingerprint.of(science));
+    }
+
+    @Test
+    void testFingerprintCapturesTextSortAndDepth() {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQ("python");
+        request.setType(CourseDocument.CourseType.CLUB);
+        request.setMaxPrice(100.0);
+        request.setStartDate(LocalDateTime.of(2025, 8, 1, 0, 0));
+        request.setSort("priceDesc");
+        request.setPage(7);
+
+        assertEquals("q=text|filters=type,price,date|sort=priceDesc|depth=5-19", QueryFingerprint.of(request));
+    }
+
+    @Test
+    void testUnknownSortFallsBackToUpcoming() {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setSort("bogus");
+        request.setPage(25);
+
+        assertEquals("q=none|filters=none|sort=upcoming|depth=20+", QueryFingerprint.of(request));
+    }
+}
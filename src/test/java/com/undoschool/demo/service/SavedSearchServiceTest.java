@@ -0,0 +1,162 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch._types.ErrorCause;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.indices.*;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.transport.endpoints.BooleanResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.Config.ElasticsearchConfig;
+import com.undoschool.demo.dto.SearchAlert;
+import com.undoschool.demo.model.CourseDocument;
+import jakarta.json.Json;
+import jakarta.json.JsonValue;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SavedSearchServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 8, 14, 10, 0);
+    private final ObjectMapper objectMapper = new ElasticsearchConfig().objectMapper();
+
+    @Test
+    void testSlotsMapHitsToThePercolatedCourses() {
+        List<CourseDocument> batch = List.of(course("a"), course("b"), course("c"));
+        Hit<JsonNode> robotics = hit("s1", "alice", Json.createArrayBuilder().add(0).add(2).build());
+        Hit<JsonNode> chess = hit("s2", "bob", Json.createValue(1));
+
+        assertEquals(List.of(0, 2), SavedSearchService.slots(robotics, batch.size()));
+        assertEquals(List.of(1), SavedSearchService.slots(chess, batch.size()));
+
+        List<SearchAlert> alerts = SavedSearchService.alertsFor(List.of(robotics, chess), batch, NOW);
+        assertEquals(List.of("s1:a", "s1:c", "s2:b"), alerts.stream().map(SavedSearchService::alertId).toList());
+        assertEquals("alice", alerts.get(0).getOwner());
+        assertEquals("Course c", alerts.get(1).getTitle());
+        assertEquals(NOW, alerts.get(2).getMatchedAt());
+    }
+
+    @Test
+    void testWithoutSlotFieldOnlyASingleCourseBatchMatches() {
+        Hit<JsonNode> hit = hit("s1", "alice", null);
+
+        assertEquals(List.of(0), SavedSearchService.slots(hit, 1));
+        assertEquals(List.of(), SavedSearchService.slots(hit, 2));
+    }
+
+    @Test
+    void testConflictsAreAlertsRecordedBefore() {
+        BulkResponse response = BulkResponse.of(b -> b
+                .took(3)
+                .errors(true)
+                .items(item("s1:a", 201, null),
+                        item("s1:c", 409, "version_conflict_engine_exception"),
+                        item("s2:b", 201, null),
+                        item("s2:d", 429, "es_rejected_execution_exception")));
+
+        assertEquals(2, SavedSearchService.countCreated(response));
+    }
+
+    @Test
+    void testReloadsPercolateOnlyNewAndChangedCourses() throws Exception {
+        List<List<String>> percolated = new ArrayList<>();
+        SavedSearchService savedSearchService = new SavedSearchService(null, null, objectMapper) {
+            @Override
+            public int percolate(List<CourseDocument> courses) {
+                percolated.add(courses.stream().map(CourseDocument::getId).toList());
+                return 0;
+            }
+        };
+        ReflectionTestUtils.setField(savedSearchService, "enabled", true);
+        CourseIndexer indexer = indexerPublishingTo(savedSearchService);
+
+        // The catalog at startup is what saved searches were made against
+        indexer.replaceAll(List.of(course("a"), course("b")));
+        assertEquals(List.of(), percolated);
+
+        CourseDocument changed = course("b");
+        changed.setPrice(19.0);
+        indexer.replaceAll(List.of(course("a"), changed, course("c")));
+        assertEquals(List.of(List.of("b", "c")), percolated);
+
+        // A reindex of the same catalog, and a course coming back after it was removed
+        indexer.replaceAll(List.of(course("a"), changed, course("c")));
+        indexer.replaceAll(List.of(course("a"), changed));
+        indexer.replaceAll(List.of(course("a"), changed, course("c")));
+        assertEquals(List.of(List.of("b", "c"), List.of("c")), percolated);
+    }
+
+    /** A {@link CourseIndexer} over a cluster that accepts everything, publishing its events to {@code listener}. */
+    private CourseIndexer indexerPublishingTo(SavedSearchService listener) {
+        FakeTransport transport = new FakeTransport(request -> {
+            if (request instanceof ExistsRequest) {
+                return new BooleanResponse(true);
+            } else if (request instanceof DeleteIndexRequest) {
+                return DeleteIndexResponse.of(d -> d.acknowledged(true));
+            } else if (request instanceof CreateIndexRequest create) {
+                return CreateIndexResponse.of(c -> c.index(create.index()).acknowledged(true).shardsAcknowledged(true));
+            } else if (request instanceof BulkRequest bulk) {
+                return BulkResponse.of(b -> b.took(1).errors(false).items(bulk.operations().stream()
+                        .map(op -> BulkResponseItem.of(i -> i
+                                .operationType(OperationType.Index)
+                                .index(op.index().index())
+                                .id(op.index().id())
+                                .status(201)))
+                        .toList()));
+            } else if (request instanceof RefreshRequest) {
+                return RefreshResponse.of(r -> r.shards(sh -> sh.total(1).successful(1).failed(0)));
+            }
+            throw new IllegalArgumentException("Unexpected request " + request);
+        });
+        ElasticsearchClient client = new ElasticsearchClient(transport);
+        CourseIndexLayout layout = new CourseIndexLayout(client);
+        ReflectionTestUtils.setField(layout, "coursesIndex", "courses");
+        ReflectionTestUtils.setField(layout, "numberOfShards", 1);
+        ApplicationEventPublisher publisher = event -> listener.onCourseIngest((CourseIngestEvent) event);
+        CourseIndexer indexer = new CourseIndexer(client, layout, publisher, null,
+                new WireFormat(objectMapper, "json"), objectMapper);
+        ReflectionTestUtils.setField(indexer, "batchSize", 500);
+        return indexer;
+    }
+
+    private Hit<JsonNode> hit(String searchId, String owner, JsonValue slots) {
+        JsonNode source = objectMapper.valueToTree(Map.of("searchId", searchId, "owner", owner));
+        return Hit.of(h -> {
+            h.index("courses-saved-searches").id(searchId).source(source);
+            if (slots != null) {
+                h.fields(Map.of("_percolator_document_slot", JsonData.of(slots)));
+            }
+            return h;
+        });
+    }
+
+    private static BulkResponseItem item(String id, int status, String errorType) {
+        return BulkResponseItem.of(i -> {
+            i.operationType(OperationType.Create).index("courses-search-alerts").id(id).status(status);
+            if (errorType != null) {
+                i.error(ErrorCause.of(e -> e.type(errorType).reason(errorType)));
+            }
+            return i;
+        });
+    }
+
+    private static CourseDocument course(String id) {
+        CourseDocument course = new CourseDocument();
+        course.setId(id);
+        course.setTitle("Course " + id);
+        return course;
+    }
+}
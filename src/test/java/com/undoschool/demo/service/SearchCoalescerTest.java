@@ -0,0 +1,116 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.CourseSearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCoalescerTest {
+
+    private final SearchCoalescer searchCoalescer = new SearchCoalescer(new SimpleMeterRegistry());
+
+    @Test
+    void testConcurrentIdenticalSearchesShareOneExecution() throws Exception {
+        int callers = 8;
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CourseSearchResponse expected = new CourseSearchResponse(0, Collections.emptyList(), 0, 10, 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<CourseSearchResponse>> results = new ArrayList<>();
+            results.add(executor.submit(() -> searchCoalescer.execute(request("Python "), () -> {
+                executions.incrementAndGet();
+                leaderStarted.countDown();
+                await(release);
+                return expected;
+            })));
+            leaderStarted.await();
+
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> searchCoalescer.execute(request("python"), () -> {
+                    executions.incrementAndGet();
+                    return expected;
+                })));
+            }
+            while (searchCoalescer.getCoalescedCount() < callers - 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Set<CourseSearchResponse> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Future<CourseSearchResponse> result : results) {
+                CourseSearchResponse response = result.get(5, TimeUnit.SECONDS);
+                assertEquals(expected, response);
+                distinct.add(response);
+            }
+            // Each caller may change its response without the others seeing it
+            assertEquals(callers, distinct.size());
+            assertFalse(distinct.contains(expected));
+            assertEquals(1, executions.get());
+            assertEquals(callers - 1, searchCoalescer.getCoalescedCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailureIsPropagatedAndNotCached() {
+        assertThrows(IllegalStateException.class, () -> searchCoalescer.execute(request("art"), () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        CourseSearchResponse response = new CourseSearchResponse();
+        assertEquals(response, searchCoalescer.execute(request("art"), () -> response));
+    }
+
+    @Test
+    void testErrorsReachCallersThatJoined() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<CourseSearchResponse> leader = executor.submit(() -> searchCoalescer.execute(request("art"), () -> {
+                leaderStarted.countDown();
+                await(release);
+                throw new StackOverflowError();
+            }));
+            leaderStarted.await();
+            Future<CourseSearchResponse> follower = executor.submit(() -> searchCoalescer.execute(request("art"),
+                    CourseSearchResponse::new));
+            while (searchCoalescer.getCoalescedCount() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            for (Future<CourseSearchResponse> caller : List.of(leader, follower)) {
+                ExecutionException e = assertThrows(ExecutionException.class, () -> caller.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(StackOverflowError.class, e.getCause());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static CourseSearchRequest request(String q) {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQ(q);
+        return QueryFingerprint.normalize(request);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
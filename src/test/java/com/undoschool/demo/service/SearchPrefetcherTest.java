@@ -0,0 +1,120 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.dto.CourseSearchRequest;
+import com.undoschool.demo.dto.CourseSearchResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchPrefetcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IndexGeneration indexGeneration = new IndexGeneration();
+    private final SearchPrefetcher searchPrefetcher = new SearchPrefetcher(indexGeneration,
+            new AdaptiveConcurrencyLimiter(meterRegistry, 20, 4, 200, 1.5), meterRegistry,
+            true, 30_000, 100, 1, 10);
+
+    @Test
+    void testNextPageIsServedFromThePrefetch() throws Exception {
+        List<Integer> searchedPages = new CopyOnWriteArrayList<>();
+        CountDownLatch fetched = new CountDownLatch(1);
+
+        searchPrefetcher.prefetchNext(page(0), response(0, 35), request -> {
+            searchedPages.add(request.getPage());
+            fetched.countDown();
+            return response(request.getPage(), 35);
+        });
+        assertTrue(fetched.await(5, TimeUnit.SECONDS));
+
+        CourseSearchResponse prefetched = awaitPrefetch(page(1));
+        assertNotNull(prefetched);
+        assertEquals(1, prefetched.getPage());
+        assertEquals(List.of(1), searchedPages);
+        assertTrue(searchPrefetcher.getHitRatio() > 0);
+    }
+
+    @Test
+    void testIndexChangesInvalidatePrefetchedPages() throws Exception {
+        CountDownLatch fetched = new CountDownLatch(1);
+        searchPrefetcher.prefetchNext(page(0), response(0, 35), request -> {
+            fetched.countDown();
+            return response(request.getPage(), 35);
+        });
+        assertTrue(fetched.await(5, TimeUnit.SECONDS));
+        assertNotNull(awaitPrefetch(page(1)));
+
+        indexGeneration.bump();
+
+        assertNull(searchPrefetcher.get(page(1)));
+    }
+
+    @Test
+    void testEveryHitGetsItsOwnCopy() throws Exception {
+        searchPrefetcher.prefetchNext(page(0), response(0, 35), request -> response(request.getPage(), 35));
+        CourseSearchResponse first = awaitPrefetch(page(1));
+        assertNotNull(first);
+        first.setTotal(0);
+
+        CourseSearchResponse second = searchPrefetcher.get(page(1));
+        assertNotSame(first, second);
+        assertEquals(35, second.getTotal());
+    }
+
+    @Test
+    void testNothingIsPrefetchedAfterTheLastPage() {
+        searchPrefetcher.prefetchNext(page(3), response(3, 35), request -> {
+            throw new AssertionError("Page " + request.getPage() + " does not exist");
+        });
+
+        assertNull(searchPrefetcher.get(page(4)));
+    }
+
+    @Test
+    void testTimedOutPagesAreNotKept() throws Exception {
+        CountDownLatch searchedTwice = new CountDownLatch(2);
+        // Once the first fetch is done, only a page that was not kept is fetched again
+        for (int i = 0; i < 100 && searchedTwice.getCount() > 0; i++) {
+            searchPrefetcher.prefetchNext(page(0), response(0, 35), request -> {
+                searchedTwice.countDown();
+                CourseSearchResponse response = response(request.getPage(), 35);
+                response.setTimedOut(true);
+                return response;
+            });
+            Thread.sleep(10);
+        }
+
+        assertTrue(searchedTwice.await(5, TimeUnit.SECONDS));
+        assertNull(searchPrefetcher.get(page(1)));
+    }
+
+    /** The search runs before the cache is filled; give the prefetch thread a moment. */
+    private CourseSearchResponse awaitPrefetch(CourseSearchRequest key) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            CourseSearchResponse response = searchPrefetcher.get(key);
+            if (response != null) {
+                return response;
+            }
+            Thread.sleep(10);
+        }
+        return null;
+    }
+
+    private static CourseSearchRequest page(int page) {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQ("python");
+        request.setPage(page);
+        request.setSize(10);
+        return QueryFingerprint.normalize(request);
+    }
+
+    private static CourseSearchResponse response(int page, long total) {
+        return new CourseSearchResponse(total, Collections.emptyList(), page, 10, (int) Math.ceil(total / 10.0));
+    }
+}
@@ -0,0 +1,67 @@
+package com.undoschool.demo.service;
+
+import co.elastic.clients.elasticsearch.core.search.Profile;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import com.undoschool.demo.dto.SearchProfileReport;
+import jakarta.json.stream.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchProfilesTest {
+
+    @Test
+    void testShardTimesAndClauseTreeAreConverted() {
+        String json = "{\"shards\":[{\"id\":\"[node][courses][0]\",\"searches\":[{"
+                + "\"query\":[{\"type\":\"BooleanQuery\",\"description\":\"+title:robot #category:Technology\","
+                + "\"time_in_nanos\":2500000,\"breakdown\":" + breakdown(1_200_000, 300_000) + ","
+                + "\"children\":[{\"type\":\"TermQuery\",\"description\":\"title:robot\","
+                + "\"time_in_nanos\":900000,\"breakdown\":" + breakdown(500_000, 0) + "}]}],"
+                + "\"rewrite_time\":40000,"
+                + "\"collector\":[{\"name\":\"SimpleTopScoreDocCollector\",\"reason\":\"search_top_hits\","
+                + "\"time_in_nanos\":150000}]}],"
+                + "\"aggregations\":[]}]}";
+
+        List<SearchProfileReport.Shard> shards = SearchProfiles.shards(parse(json));
+
+        assertEquals(1, shards.size());
+        SearchProfileReport.Shard shard = shards.get(0);
+        assertEquals("[node][courses][0]", shard.getId());
+        assertEquals(0.04, shard.getRewriteMs());
+        assertEquals(0.15, shard.getCollectMs());
+
+        SearchProfileReport.QueryNode bool = shard.getQuery().get(0);
+        assertEquals("BooleanQuery", bool.getType());
+        assertEquals(2.5, bool.getTimeMs());
+        assertEquals(Map.of("create_weight", 1_200_000L, "next_doc", 300_000L), bool.getBreakdown());
+        assertEquals("title:robot", bool.getChildren().get(0).getDescription());
+        assertEquals(Map.of("create_weight", 500_000L), bool.getChildren().get(0).getBreakdown());
+        assertNull(bool.getChildren().get(0).getChildren());
+    }
+
+    @Test
+    void testNoProfileGivesNoShards() {
+        assertTrue(SearchProfiles.shards(null).isEmpty());
+    }
+
+    private static Profile parse(String json) {
+        JacksonJsonpMapper mapper = new JacksonJsonpMapper();
+        JsonParser parser = mapper.jsonProvider().createParser(new StringReader(json));
+        return Profile._DESERIALIZER.deserialize(parser, mapper);
+    }
+
+    private static String breakdown(long createWeight, long nextDoc) {
+        StringBuilder json = new StringBuilder("{");
+        for (String phase : List.of("advance", "build_scorer", "match", "score", "shallow_advance",
+                "compute_max_score", "set_min_competitive_score")) {
+            json.append('"').append(phase).append("\":0,\"").append(phase).append("_count\":0,");
+        }
+        return json.append("\"create_weight\":").append(createWeight).append(",\"create_weight_count\":1,")
+                .append("\"next_doc\":").append(nextDoc).append(",\"next_doc_count\":1}")
+                .toString();
+    }
+}
@@ -0,0 +1,41 @@
+package com.undoschool.demo.service;
+
+import com.undoschool.demo.dto.CourseSearchRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchWarmupTest {
+
+    @Test
+    void testLastDistinctSearchIsHeldOut() {
+        List<CourseSearchRequest> requests = new ArrayList<>(List.of(search("robot"), search("chess"),
+                search("art"), search(" Chess ")));
+
+        CourseSearchRequest heldOut = SearchWarmup.holdOut(requests);
+
+        // " Chess " is replayed as "chess", so the search held out is "art"
+        assertEquals("art", heldOut.getQ());
+        assertEquals(List.of("robot", "chess", " Chess "), requests.stream().map(CourseSearchRequest::getQ).toList());
+    }
+
+    @Test
+    void testNothingIsHeldOutWithoutADistinctSearch() {
+        List<CourseSearchRequest> repeated = new ArrayList<>(List.of(search("robot"), search("robot")));
+        List<CourseSearchRequest> single = new ArrayList<>(List.of(search("robot")));
+
+        assertNull(SearchWarmup.holdOut(repeated));
+        assertNull(SearchWarmup.holdOut(single));
+        assertEquals(2, repeated.size());
+        assertEquals(1, single.size());
+    }
+
+    private static CourseSearchRequest search(String q) {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQ(q);
+        return request;
+    }
+}
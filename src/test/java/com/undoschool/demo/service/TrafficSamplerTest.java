@@ -0,0 +1,55 @@
+package com.undoschool.demo.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.Config.ElasticsearchConfig;
+import com.undoschool.demo.dto.CourseSearchRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrafficSamplerTest {
+
+    private final ObjectMapper objectMapper = new ElasticsearchConfig().objectMapper();
+
+    @Test
+    void testSampleIsBoundedAndNormalized() {
+        TrafficSampler sampler = new TrafficSampler(objectMapper, 5, "");
+        for (int i = 0; i < 100; i++) {
+            sampler.record(request("  Python " + i));
+        }
+
+        List<CourseSearchRequest> sample = sampler.getSample();
+        assertEquals(5, sample.size());
+        sample.forEach(r -> assertEquals(r.getQ().trim().toLowerCase(), r.getQ()));
+    }
+
+    @Test
+    void testNothingIsRecordedWhilePaused() {
+        TrafficSampler sampler = new TrafficSampler(objectMapper, 5, "");
+        sampler.setRecording(false);
+        sampler.record(request("python"));
+
+        assertTrue(sampler.getSample().isEmpty());
+    }
+
+    @Test
+    void testBundledWarmupRequestsParse() throws Exception {
+        try (InputStream in = new ClassPathResource("warmup/search-requests.json").getInputStream()) {
+            List<CourseSearchRequest> requests = objectMapper.readValue(in, new TypeReference<>() {
+            });
+            assertFalse(requests.isEmpty());
+            assertTrue(requests.stream().anyMatch(CourseSearchRequest::isFacets));
+        }
+    }
+
+    private static CourseSearchRequest request(String q) {
+        CourseSearchRequest request = new CourseSearchRequest();
+        request.setQ(q);
+        return request;
+    }
+}
@@ -0,0 +1,49 @@
+package com.undoschool.demo.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.undoschool.demo.Config.ElasticsearchConfig;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WireFormatTest {
+
+    private final ObjectMapper objectMapper = new ElasticsearchConfig().objectMapper();
+
+    private static final byte[] SEARCH_BODY =
+            "{\"query\":{\"term\":{\"category\":{\"value\":\"Technology\"}}},\"size\":10}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testJsonBodiesAreSentAsIs() throws Exception {
+        WireFormat json = new WireFormat(objectMapper, "json");
+
+        assertFalse(json.isBinary());
+        assertSame(SEARCH_BODY, json.fromJson(SEARCH_BODY));
+        assertEquals('\n', json.streamSeparator());
+    }
+
+    @Test
+    void testSmileReencodesSearchBodies() throws Exception {
+        WireFormat smile = new WireFormat(objectMapper, "smile");
+
+        byte[] encoded = smile.fromJson(SEARCH_BODY);
+
+        assertTrue(smile.isBinary());
+        assertTrue(smile.supportsBulk());
+        assertEquals(':', encoded[0], "SMILE documents start with the ':)' header");
+        assertEquals(objectMapper.readTree(SEARCH_BODY), smile.mapper().readTree(encoded));
+    }
+
+    @Test
+    void testCborCannotCarryBulkBodies() throws Exception {
+        WireFormat cbor = new WireFormat(objectMapper, "CBOR");
+
+        JsonNode decoded = cbor.mapper().readTree(cbor.fromJson(SEARCH_BODY));
+
+        assertFalse(cbor.supportsBulk());
+        assertEquals(10, decoded.get("size").asInt());
+    }
+}